@@ -2,8 +2,10 @@ package com.wuyimall;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class WuyiMallApplication {
 
     public static void main(String[] args) {
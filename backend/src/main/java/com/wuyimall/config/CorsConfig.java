@@ -29,6 +29,7 @@ public class CorsConfig {
         config.setAllowCredentials(true);
         // 暴露的响应头
         config.addExposedHeader("Authorization");
+        config.addExposedHeader("Retry-After");
         
         // 对所有路径应用CORS配置
         source.registerCorsConfiguration("/**", config);
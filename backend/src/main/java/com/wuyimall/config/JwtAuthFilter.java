@@ -32,11 +32,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         
         // 3. 解析 Token
         String token = authHeader.substring(7); // 去掉 "Bearer " 前缀
-        Long userId = null;
+        JwtUtil.TokenClaims claims = null;
         
         try {
-            // 4. 验证 Token 并获取 userId
-            userId = jwtUtil.getUserId(token);
+            // 4. 验证 Token 并获取 userId 和角色声明
+            claims = jwtUtil.verify(token);
         } catch (JwtException e) {
             // 5. Token 无效，返回 401 错误
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
@@ -45,8 +45,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
         
-        // 6. 将 userId 注入到请求中，便于后续 Controller 中获取
-        request.setAttribute("userId", userId);
+        // 6. 将 userId 和角色声明注入到请求中，便于后续 Controller 中获取
+        request.setAttribute("userId", claims.getUserId());
+        request.setAttribute("isAdmin", claims.getAdmin());
         
         // 7. 放行请求
         filterChain.doFilter(request, response);
@@ -0,0 +1,37 @@
+package com.wuyimall.config;
+
+import com.wuyimall.entity.OrderItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时校准 order_item 的ID序列表
+ * order_item 原先使用自增ID，改为序列分配后序列表从1开始，
+ * 这里保证序列值比现有最大ID至少大一个号段，避免新分配的ID与已有数据冲突；
+ * 在所有单例（包括建表的 EntityManagerFactory）创建完成后、Web 服务开始接收请求前执行
+ */
+@Component
+public class OrderItemSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderItemSequenceInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long minNext = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM order_item", Long.class)
+                + OrderItem.ID_ALLOCATION_SIZE + 1;
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_item_seq", Integer.class);
+        if (rows == null || rows == 0) {
+            jdbcTemplate.update("INSERT INTO order_item_seq (next_val) VALUES (?)", minNext);
+        } else {
+            jdbcTemplate.update("UPDATE order_item_seq SET next_val = GREATEST(next_val, ?)", minNext);
+        }
+        log.info("order_item id sequence aligned, next value >= {}", minNext);
+    }
+}
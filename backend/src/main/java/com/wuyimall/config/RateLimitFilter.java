@@ -0,0 +1,133 @@
+package com.wuyimall.config;
+
+import com.wuyimall.util.ClientIpResolver;
+import com.wuyimall.util.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口限流过滤器，在 JwtAuthFilter 之后执行
+ * 已登录的请求按用户ID限流，未登录的请求按客户端IP限流；登录注册、加入购物车、下单、搜索各自使用独立的额度，
+ * 其他接口共用默认额度。超出额度时直接返回 429，不再访问数据库。
+ * 客户端IP：请求来自 wuyi.rate-limit.trusted-proxies 中的代理（如前端开发服务器、Nginx）时取 X-Forwarded-For
+ * 中最右边的不受信任地址，否则取连接的对端地址；server.forward-headers-strategy 保持默认（none），
+ * 由本过滤器按受信任代理列表处理该请求头
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Value("${wuyi.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wuyi.rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${wuyi.rate-limit.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1}")
+    private List<String> trustedProxies;
+
+    @Value("${wuyi.rate-limit.default.permits-per-second:20}")
+    private double defaultRate;
+
+    @Value("${wuyi.rate-limit.default.burst:40}")
+    private int defaultBurst;
+
+    @Value("${wuyi.rate-limit.login.permits-per-second:1}")
+    private double loginRate;
+
+    @Value("${wuyi.rate-limit.login.burst:5}")
+    private int loginBurst;
+
+    @Value("${wuyi.rate-limit.cart-add.permits-per-second:5}")
+    private double cartAddRate;
+
+    @Value("${wuyi.rate-limit.cart-add.burst:10}")
+    private int cartAddBurst;
+
+    @Value("${wuyi.rate-limit.order-create.permits-per-second:1}")
+    private double orderCreateRate;
+
+    @Value("${wuyi.rate-limit.order-create.burst:3}")
+    private int orderCreateBurst;
+
+    @Value("${wuyi.rate-limit.search.permits-per-second:5}")
+    private double searchRate;
+
+    @Value("${wuyi.rate-limit.search.burst:10}")
+    private int searchBurst;
+
+    private RateLimiter defaultLimiter;
+    private RateLimiter loginLimiter;
+    private RateLimiter cartAddLimiter;
+    private RateLimiter orderCreateLimiter;
+    private RateLimiter searchLimiter;
+
+    private ClientIpResolver clientIpResolver;
+
+    @PostConstruct
+    public void initLimiters() {
+        clientIpResolver = new ClientIpResolver(trustedProxies);
+        defaultLimiter = new RateLimiter(defaultRate, defaultBurst, maxKeys);
+        loginLimiter = new RateLimiter(loginRate, loginBurst, maxKeys);
+        cartAddLimiter = new RateLimiter(cartAddRate, cartAddBurst, maxKeys);
+        orderCreateLimiter = new RateLimiter(orderCreateRate, orderCreateBurst, maxKeys);
+        searchLimiter = new RateLimiter(searchRate, searchBurst, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // 跨域预检请求和非 API 请求不限流
+        return !enabled || "OPTIONS".equals(request.getMethod()) || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // 1. 限流键：已登录用 userId（由 JwtAuthFilter 注入），否则用客户端IP
+        Long userId = (Long) request.getAttribute("userId");
+        String key = userId != null ? "u:" + userId
+                : "ip:" + clientIpResolver.resolve(request.getRemoteAddr(), request.getHeader("X-Forwarded-For"));
+
+        // 2. 按接口选择额度
+        long waitNanos = selectLimiter(request).tryAcquire(key);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // 3. 超出额度，返回 429 并告知多久后可以重试
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"message\": \"请求过于频繁，请稍后再试\"}");
+    }
+
+    private RateLimiter selectLimiter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        boolean post = "POST".equals(request.getMethod());
+        if (post && (uri.equals("/api/users/login") || uri.equals("/api/users/register"))) {
+            return loginLimiter;
+        }
+        if (post && (uri.equals("/api/cart/add") || uri.equals("/api/cart/batch"))) {
+            return cartAddLimiter;
+        }
+        if (post && (uri.equals("/api/orders/create") || uri.equals("/api/orders/checkout"))) {
+            return orderCreateLimiter;
+        }
+        if (uri.equals("/api/products/search")) {
+            return searchLimiter;
+        }
+        return defaultLimiter;
+    }
+}
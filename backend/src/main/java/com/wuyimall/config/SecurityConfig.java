@@ -16,6 +16,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -36,7 +39,10 @@ public class SecurityConfig {
             )
             
             // 4. 添加 JWT 过滤器，在 UsernamePasswordAuthenticationFilter 之前执行
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            
+            // 5. 添加限流过滤器，在 JWT 过滤器之后执行，以便按用户ID限流
+            .addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,96 @@
+package com.wuyimall.controller;
+
+import org.springframework.web.bind.annotation.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import com.wuyimall.service.AdminService;
+import com.wuyimall.service.SalesAnalyticsService;
+import com.wuyimall.dto.SalesPointDTO;
+import com.wuyimall.dto.TopProductDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class AdminAnalyticsController {
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    // 热销商品排行的最大条数
+    private static final int MAX_TOP_LIMIT = 100;
+
+    private Long getUserId(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        if (userId == null) {
+            throw new RuntimeException("请先登录");
+        }
+        return userId;
+    }
+
+    // 销售趋势（按小时或按天），可按分类过滤
+    @GetMapping("/sales")
+    public Map<String, Object> sales(@RequestParam(defaultValue = "day") String granularity,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                     @RequestParam(required = false) Long categoryId,
+                                     HttpServletRequest request) {
+        Long userId = getUserId(request);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
+
+        if (!"hour".equals(granularity) && !"day".equals(granularity)) {
+            throw new RuntimeException("不支持的统计粒度：" + granularity);
+        }
+        List<SalesPointDTO> series = salesAnalyticsService.getSeries("hour".equals(granularity),
+                startDate, endDate, categoryId);
+
+        // 汇总整个时间范围
+        BigDecimal revenue = BigDecimal.ZERO;
+        long orders = 0;
+        long units = 0;
+        for (SalesPointDTO point : series) {
+            revenue = revenue.add(point.getRevenue());
+            orders += point.getOrders();
+            units += point.getUnits();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("series", series);
+        result.put("revenue", revenue);
+        result.put("orders", orders);
+        result.put("units", units);
+        return result;
+    }
+
+    // 热销商品排行（按销售额）
+    @GetMapping("/top-products")
+    public List<TopProductDTO> topProducts(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                           @RequestParam(required = false) Long categoryId,
+                                           @RequestParam(defaultValue = "10") Integer limit,
+                                           HttpServletRequest request) {
+        Long userId = getUserId(request);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
+
+        return salesAnalyticsService.getTopProducts(startDate, endDate, categoryId,
+                Math.max(1, Math.min(limit, MAX_TOP_LIMIT)));
+    }
+
+    // 从订单数据全量重建汇总表
+    @PostMapping("/rebuild")
+    public String rebuild(HttpServletRequest request) {
+        Long userId = getUserId(request);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
+
+        salesAnalyticsService.rebuild();
+        return "销售汇总重建成功";
+    }
+}
@@ -1,10 +1,10 @@
 package com.wuyimall.controller;
 
-import com.wuyimall.repository.ProductRepository;
 import com.wuyimall.repository.UserRepository;
 import com.wuyimall.repository.OrderRepository;
 import com.wuyimall.entity.Order;
 import com.wuyimall.entity.User;
+import com.wuyimall.service.DashboardMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,7 +16,7 @@ import java.util.*;
 public class AdminDashboardController {
 
     @Autowired
-    private ProductRepository productRepository;
+    private DashboardMetrics dashboardMetrics;
 
     @Autowired
     private UserRepository userRepository;
@@ -24,28 +24,27 @@ public class AdminDashboardController {
     @Autowired
     private OrderRepository orderRepository;
 
-    // 获取统计数据
+    // 获取统计数据（由 DashboardMetrics 在内存中增量维护，不访问数据库）
     @GetMapping("/stats")
     public Map<String, Object> getStats(HttpServletRequest request) {
+        DashboardMetrics.Snapshot snapshot = dashboardMetrics.getSnapshot();
         Map<String, Object> stats = new HashMap<>();
         
-        // 获取商品总数：只统计状态为1（上架）的商品
-        long productCount = productRepository.countByStatus(1);
-        stats.put("productCount", productCount);
+        // 商品总数：只统计状态为1（上架）的商品
+        stats.put("productCount", snapshot.getProductCount());
         
-        // 获取用户总数：直接使用userRepository.count()获取user表的记录总数
-        stats.put("userCount", userRepository.count());
+        // 用户总数
+        stats.put("userCount", snapshot.getUserCount());
         
-        // 获取订单总数：直接使用orderRepository.count()获取order表的记录总数
-        stats.put("orderCount", orderRepository.count());
+        // 订单总数
+        stats.put("orderCount", snapshot.getOrderCount());
         
-        // 获取总销售额：查询所有订单并计算总金额
-        List<Order> allOrders = orderRepository.findAll();
-        double totalSales = allOrders.stream()
-                .map(order -> order.getTotalAmount().doubleValue())
-                .mapToDouble(Double::doubleValue)
-                .sum();
-        stats.put("totalSales", totalSales);
+        // 总销售额：所有订单的金额合计
+        stats.put("totalSales", snapshot.getTotalSales().doubleValue());
+        
+        // 已支付订单的金额合计，以及各状态订单数
+        stats.put("paidSales", snapshot.getPaidSales().doubleValue());
+        stats.put("orderStatusCounts", snapshot.getOrderStatusCounts());
         
         return stats;
     }
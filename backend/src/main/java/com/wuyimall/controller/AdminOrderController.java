@@ -1,16 +1,25 @@
 package com.wuyimall.controller;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.wuyimall.service.AdminService;
 import com.wuyimall.service.OrderService;
 import com.wuyimall.repository.OrderRepository;
 import com.wuyimall.entity.Order;
 import com.wuyimall.dto.OrderDTO;
+import com.wuyimall.dto.OrderPageDTO;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.List;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/admin/orders")
@@ -26,6 +35,15 @@ public class AdminOrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 游标分页的单页上限
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // 流式导出时每次从数据库取的行数
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private Long getUserId(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
         if (userId == null) {
@@ -34,20 +52,63 @@ public class AdminOrderController {
         return userId;
     }
 
-    // 订单列表（所有用户的）
-    @GetMapping("/list")
-    public List<OrderDTO> list(HttpServletRequest request) {
-        Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
-
-        List<Order> orders = orderRepository.findAll(Sort.by(Sort.Direction.DESC, "createTime"));
-        List<OrderDTO> result = new ArrayList<>();
-        for (Order order : orders) {
-            // 假设orderService有根据订单ID获取订单详情的方法
-            OrderDTO orderDTO = orderService.getOrderById(order.getId(), order.getUserId());
-            result.add(orderDTO);
-        }
-        return result;
+    // 订单游标分页（按创建时间倒序，支持状态/日期/用户过滤）
+    @GetMapping("/page")
+    public OrderPageDTO page(@RequestParam(required = false) String cursor,
+                             @RequestParam(defaultValue = "20") Integer size,
+                             @RequestParam(required = false) Integer status,
+                             @RequestParam(required = false) Long userId,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                             HttpServletRequest request) {
+        Long currentUserId = getUserId(request);
+        adminService.checkAdmin(currentUserId, (Boolean) request.getAttribute("isAdmin"));
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return orderService.getOrderPage(status, userId, toStartTime(startDate), toEndTime(endDate), cursor, pageSize);
+    }
+
+    // 订单流式导出（NDJSON，每行一个订单），内部按游标分批读取，内存占用与订单总数无关
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Integer status,
+                                                        @RequestParam(required = false) Long userId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                        HttpServletRequest request) {
+        Long currentUserId = getUserId(request);
+        adminService.checkAdmin(currentUserId, (Boolean) request.getAttribute("isAdmin"));
+
+        LocalDateTime startTime = toStartTime(startDate);
+        LocalDateTime endTime = toEndTime(endDate);
+        // NDJSON 要求每个对象占一行，关闭全局的缩进输出
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+        StreamingResponseBody body = (OutputStream out) -> {
+            String cursor = null;
+            do {
+                OrderPageDTO page = orderService.getOrderPage(status, userId, startTime, endTime, cursor, STREAM_BATCH_SIZE);
+                for (OrderDTO order : page.getOrders()) {
+                    out.write(writer.writeValueAsBytes(order));
+                    out.write('\n');
+                }
+                out.flush();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    // 日期过滤：起始日期当天 00:00（包含）
+    private LocalDateTime toStartTime(LocalDate startDate) {
+        return startDate == null ? null : startDate.atStartOfDay();
+    }
+
+    // 日期过滤：结束日期次日 00:00（不包含），即结束日期当天整天都包含在内
+    private LocalDateTime toEndTime(LocalDate endDate) {
+        return endDate == null ? null : endDate.plusDays(1).atStartOfDay();
     }
 
     // 修改订单状态（比如发货/完成）
@@ -56,13 +117,9 @@ public class AdminOrderController {
                                @RequestParam Integer status,
                                HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
-
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
 
-        order.setStatus(status);
-        orderRepository.save(order);
+        orderService.changeStatus(orderId, status);
         return "订单状态更新成功";
     }
     
@@ -70,7 +127,7 @@ public class AdminOrderController {
     @GetMapping("/{orderId}")
     public OrderDTO getOrderDetail(@PathVariable Long orderId, HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
         
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("订单不存在"));
@@ -3,6 +3,7 @@ package com.wuyimall.controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.wuyimall.service.AdminService;
+import com.wuyimall.service.ProductService;
 import com.wuyimall.repository.ProductRepository;
 import com.wuyimall.repository.CategoryRepository;
 import com.wuyimall.entity.Product;
@@ -11,6 +12,7 @@ import com.wuyimall.dto.ProductDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/products")
@@ -26,6 +28,9 @@ public class AdminProductController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private ProductService productService;
+
     private Long getUserId(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
         if (userId == null) {
@@ -38,7 +43,7 @@ public class AdminProductController {
     @GetMapping("/list")
     public List<ProductDTO> list(HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
         
         List<Product> products = productRepository.findAll();
         List<ProductDTO> result = new ArrayList<>();
@@ -69,32 +74,32 @@ public class AdminProductController {
     @PostMapping("/create")
     public Product create(@RequestBody Product product, HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
 
         product.setId(null);
         product.setStatus(1); // 默认上架
-        return productRepository.save(product);
+        return productService.save(product);
     }
 
     // 更新商品
     @PostMapping("/update")
     public Product update(@RequestBody Product product, HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
 
         if (product.getId() == null) {
             throw new RuntimeException("缺少商品ID");
         }
-        return productRepository.save(product);
+        return productService.save(product);
     }
 
     // 删除商品（可选）
     @PostMapping("/delete")
     public String delete(@RequestParam Long id, HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
 
-        productRepository.deleteById(id);
+        productService.delete(id);
         return "删除成功";
     }
 
@@ -104,12 +109,18 @@ public class AdminProductController {
                                @RequestParam Integer status,
                                HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
 
-        Product p = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("商品不存在"));
-        p.setStatus(status);
-        productRepository.save(p);
+        productService.changeStatus(id, status);
         return "状态更新成功";
     }
+
+    // 商品缓存统计
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats(HttpServletRequest request) {
+        Long userId = getUserId(request);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
+
+        return productService.getCacheStats();
+    }
 }
@@ -4,6 +4,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import com.wuyimall.service.AdminService;
+import com.wuyimall.service.DashboardMetrics;
 import com.wuyimall.repository.UserRepository;
 import com.wuyimall.entity.User;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +22,9 @@ public class AdminUserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private DashboardMetrics dashboardMetrics;
+
     private Long getUserId(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
         if (userId == null) {
@@ -37,7 +41,7 @@ public class AdminUserController {
             @RequestParam(required = false) String status,
             HttpServletRequest request) {
         Long userId = getUserId(request);
-        adminService.checkAdmin(userId);
+        adminService.checkAdmin(userId, (Boolean) request.getAttribute("isAdmin"));
 
         // 获取所有用户
         List<User> allUsers = userRepository.findAll(Sort.by(Sort.Direction.DESC, "createTime"));
@@ -61,7 +65,7 @@ public class AdminUserController {
     @GetMapping("/{userId}")
     public User getUser(@PathVariable Long userId, HttpServletRequest request) {
         Long currentUserId = getUserId(request);
-        adminService.checkAdmin(currentUserId);
+        adminService.checkAdmin(currentUserId, (Boolean) request.getAttribute("isAdmin"));
 
         return userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
@@ -73,13 +77,14 @@ public class AdminUserController {
                               @RequestParam Integer status,
                               HttpServletRequest request) {
         Long currentUserId = getUserId(request);
-        adminService.checkAdmin(currentUserId);
+        adminService.checkAdmin(currentUserId, (Boolean) request.getAttribute("isAdmin"));
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
         user.setStatus(status);
         userRepository.save(user);
+        adminService.evictUser(userId);
         return "用户状态更新成功";
     }
 
@@ -87,7 +92,7 @@ public class AdminUserController {
     @PostMapping("/delete")
     public String deleteUser(@RequestParam Long userId, HttpServletRequest request) {
         Long currentUserId = getUserId(request);
-        adminService.checkAdmin(currentUserId);
+        adminService.checkAdmin(currentUserId, (Boolean) request.getAttribute("isAdmin"));
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
@@ -98,6 +103,8 @@ public class AdminUserController {
         }
 
         userRepository.delete(user);
+        adminService.evictUser(userId);
+        dashboardMetrics.onUserCountChanged(-1);
         return "用户删除成功";
     }
 }
\ No newline at end of file
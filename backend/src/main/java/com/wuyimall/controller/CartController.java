@@ -1,11 +1,11 @@
 package com.wuyimall.controller;
 
-import com.wuyimall.entity.CartItem;
-import com.wuyimall.entity.Product;
+import com.wuyimall.dto.CartDTO;
 import com.wuyimall.dto.CartItemDTO;
+import com.wuyimall.dto.CartOperationDTO;
 import com.wuyimall.service.CartService;
-import com.wuyimall.repository.CartItemRepository;
-import com.wuyimall.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,14 +18,10 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
 public class CartController {
 
+    private static final Logger log = LoggerFactory.getLogger(CartController.class);
+
     @Autowired
     private CartService cartService;
-    
-    @Autowired
-    private CartItemRepository cartItemRepository;
-    
-    @Autowired
-    private ProductRepository productRepository;
 
     private Long getUserId(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
@@ -41,72 +37,21 @@ public class CartController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            System.out.println("Request Body: " + requestBody);
-            
-            // 直接从请求体中获取参数
-            Long productId = Long.parseLong(requestBody.get("productId").toString());
-            Integer quantity = Integer.parseInt(requestBody.get("quantity").toString());
-            
-            // 从请求头中获取token
-            String authHeader = request.getHeader("Authorization");
-            System.out.println("Authorization Header: " + authHeader);
-            
-            // 获取所有请求属性，调试用
-            System.out.println("Request Attributes:");
-            request.getAttributeNames().asIterator().forEachRemaining(name -> {
-                System.out.println(name + ": " + request.getAttribute(name));
-            });
-            
-            // 验证token并获取userId
             Long userId = getUserId(request);
-            System.out.println("UserId: " + userId);
-            System.out.println("ProductId: " + productId);
-            System.out.println("Quantity: " + quantity);
-            
-            // 直接在Controller中添加购物车记录，不调用服务层
-            // 检查商品是否存在
-            System.out.println("Calling productRepository.findById(" + productId + ")");
-            Product product = productRepository.findById(productId).orElse(null);
-            System.out.println("Found product: " + product);
-            if (product == null) {
-                // 查询所有商品，看看有哪些商品
-                List<Product> allProducts = productRepository.findAll();
-                System.out.println("All products: " + allProducts);
-                throw new RuntimeException("商品不存在，当前商品ID: " + productId);
-            }
-            
-            // 检查库存是否充足
-            if (product.getStock() < quantity) {
-                throw new RuntimeException("库存不足");
+            Object productId = requestBody.get("productId");
+            Object quantity = requestBody.get("quantity");
+            if (productId == null || quantity == null) {
+                throw new RuntimeException("缺少商品ID或数量");
             }
             
-            // 处理购物车添加逻辑
-            CartItem existingItem = cartItemRepository.findByUserIdAndProductId(userId, productId);
-            
-            if (existingItem != null) {
-                // 检查添加后总数量是否超过库存
-                int totalQuantity = existingItem.getQuantity() + quantity;
-                if (totalQuantity > product.getStock()) {
-                    throw new RuntimeException("库存不足");
-                }
-                existingItem.setQuantity(totalQuantity);
-                cartItemRepository.save(existingItem);
-                System.out.println("Updated existing cart item: " + existingItem.getId());
-            } else {
-                CartItem newItem = new CartItem();
-                newItem.setUserId(userId);
-                newItem.setProductId(productId);
-                newItem.setQuantity(quantity);
-                cartItemRepository.save(newItem);
-                System.out.println("Created new cart item: " + newItem.getId());
-            }
+            cartService.addToCart(userId, Long.parseLong(productId.toString()), Integer.parseInt(quantity.toString()));
+            log.debug("Added to cart: userId={}, productId={}, quantity={}", userId, productId, quantity);
             
             response.put("success", true);
             response.put("message", "加入购物车成功");
             return response;
         } catch (Exception e) {
-            System.err.println("加入购物车失败: " + e.getMessage());
-            e.printStackTrace();
+            log.debug("Add to cart failed: {}", e.getMessage());
             response.put("success", false);
             response.put("message", e.getMessage());
             response.put("errorDetails", e.toString());
@@ -121,6 +66,13 @@ public class CartController {
         return cartService.listCart(userId);
     }
 
+    // 查看购物车（商品项 + 合计金额、合计件数）
+    @GetMapping("/summary")
+    public CartDTO summary(HttpServletRequest request) {
+        Long userId = getUserId(request);
+        return cartService.getCart(userId);
+    }
+
     // 3. 修改数量
     @PostMapping("/update")
     public String update(@RequestParam Long productId,
@@ -139,4 +91,11 @@ public class CartController {
         cartService.removeItem(userId, productId);
         return "删除成功";
     }
-}
\ No newline at end of file
+
+    // 5. 批量修改（加入/修改数量/删除），在一个事务中执行并返回修改后的购物车
+    @PostMapping("/batch")
+    public CartDTO batch(@RequestBody List<CartOperationDTO> operations, HttpServletRequest request) {
+        Long userId = getUserId(request);
+        return cartService.applyBatch(userId, operations);
+    }
+}
@@ -1,7 +1,10 @@
 package com.wuyimall.controller;
 
 import com.wuyimall.dto.OrderDTO;
+import com.wuyimall.dto.CheckoutRequest;
 import com.wuyimall.dto.CreateOrderRequest;
+import com.wuyimall.exception.IdempotencyKeyMismatchException;
+import com.wuyimall.service.IdempotencyService;
 import com.wuyimall.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +26,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     /**
      * 从请求中获取用户ID
      * @param request HTTP请求对象
@@ -72,6 +78,33 @@ public class OrderController {
         return orders;
     }
 
+    /**
+     * 根据订单号查询订单详情
+     * @param orderNo 订单号
+     * @param request HTTP请求对象
+     * @return 订单详情
+     */
+    @GetMapping("/no/{orderNo}")
+    public ResponseEntity<Map<String, Object>> getByOrderNo(@PathVariable String orderNo, HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Long userId = getUserId(request);
+            OrderDTO order = orderService.getOrderByOrderNo(orderNo, userId);
+            if (order == null) {
+                response.put("success", false);
+                response.put("message", "订单不存在");
+                return ResponseEntity.badRequest().body(response);
+            }
+            response.put("success", true);
+            response.put("order", order);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * 取消订单
      * @param orderId 订单ID
@@ -186,20 +219,63 @@ public class OrderController {
     
     /**
      * 创建订单
+     * 带 Idempotency-Key 请求头时，同一个键重复提交只会创建一个订单；同一个键用于内容不同的请求时返回 422
      * @param requestDTO 创建订单请求DTO
+     * @param idempotencyKey 幂等键（可选）
      * @param request HTTP请求对象
      * @return 创建结果
      */
     @PostMapping("/create")
-    public ResponseEntity<Map<String, Object>> createOrder(@RequestBody CreateOrderRequest requestDTO, HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> createOrder(@RequestBody CreateOrderRequest requestDTO,
+                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                           HttpServletRequest request) {
         Map<String, Object> response = new HashMap<>();
         try {
             Long userId = getUserId(request);
-            OrderDTO order = orderService.createOrder(requestDTO, userId);
+            OrderDTO order = idempotencyKey == null
+                    ? orderService.createOrder(requestDTO, userId)
+                    : idempotencyService.execute(userId, "create", idempotencyKey, requestDTO, () -> orderService.createOrder(requestDTO, userId));
             response.put("success", true);
             response.put("message", "订单创建成功");
             response.put("order", order);
             return ResponseEntity.ok(response);
+        } catch (IdempotencyKeyMismatchException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.unprocessableEntity().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * 购物车结算
+     * 带 Idempotency-Key 请求头时，同一个键重复提交只会创建一个订单；同一个键用于内容不同的请求时返回 422
+     * @param requestDTO 结算请求DTO
+     * @param idempotencyKey 幂等键（可选）
+     * @param request HTTP请求对象
+     * @return 结算结果
+     */
+    @PostMapping("/checkout")
+    public ResponseEntity<Map<String, Object>> checkout(@RequestBody CheckoutRequest requestDTO,
+                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                        HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Long userId = getUserId(request);
+            OrderDTO order = idempotencyKey == null
+                    ? orderService.checkout(requestDTO, userId)
+                    : idempotencyService.execute(userId, "checkout", idempotencyKey, requestDTO, () -> orderService.checkout(requestDTO, userId));
+            response.put("success", true);
+            response.put("message", "订单创建成功");
+            response.put("order", order);
+            return ResponseEntity.ok(response);
+        } catch (IdempotencyKeyMismatchException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.unprocessableEntity().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -1,11 +1,16 @@
 package com.wuyimall.controller;
 
+import com.wuyimall.dto.ProductSearchResult;
 import com.wuyimall.entity.Product;
 import com.wuyimall.entity.CartItem;
 import com.wuyimall.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.web.bind.annotation.*;
+import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -20,6 +25,51 @@ public class ProductController {
         return productService.listByCategory(categoryId);
     }
 
+    /**
+     * 分页浏览上架商品
+     * @param categoryId 分类ID（可选）
+     * @param page 页码，从0开始
+     * @param size 每页条数，最大100
+     * @param sort 排序字段：price、stock、id
+     * @param direction 排序方向：asc、desc
+     * @return 当前页商品及分页信息
+     */
+    @GetMapping("/page")
+    public Map<String, Object> page(@RequestParam(required = false) Long categoryId,
+                                    @RequestParam(defaultValue = "0") Integer page,
+                                    @RequestParam(defaultValue = "20") Integer size,
+                                    @RequestParam(defaultValue = "id") String sort,
+                                    @RequestParam(defaultValue = "asc") String direction) {
+        Page<Product> result = productService.browse(categoryId, page, size, sort, direction);
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", result.getContent());
+        response.put("page", result.getNumber());
+        response.put("size", result.getSize());
+        response.put("totalElements", result.getTotalElements());
+        response.put("totalPages", result.getTotalPages());
+        return response;
+    }
+
+    /**
+     * 关键词搜索上架商品（名称和描述），返回相关度排序的结果和分类、价格分面
+     * @param q 关键词
+     * @param categoryId 分类ID（可选）
+     * @param minPrice 最低价格（可选）
+     * @param maxPrice 最高价格（可选）
+     * @param page 页码，从0开始
+     * @param size 每页条数，最大100
+     * @return 搜索结果
+     */
+    @GetMapping("/search")
+    public ProductSearchResult search(@RequestParam String q,
+                                      @RequestParam(required = false) Long categoryId,
+                                      @RequestParam(required = false) BigDecimal minPrice,
+                                      @RequestParam(required = false) BigDecimal maxPrice,
+                                      @RequestParam(defaultValue = "0") Integer page,
+                                      @RequestParam(defaultValue = "20") Integer size) {
+        return productService.search(q, categoryId, minPrice, maxPrice, page, size);
+    }
+
     @GetMapping("/{id}")
     public Product detail(@PathVariable Long id) {
         return productService.getById(id);
@@ -0,0 +1,43 @@
+package com.wuyimall.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 购物车DTO
+ * 包含购物车商品项以及合计金额、合计件数
+ */
+public class CartDTO {
+
+    private List<CartItemDTO> items; // 购物车商品项
+
+    private BigDecimal subtotal; // 商品金额合计
+
+    private Integer totalQuantity; // 商品件数合计
+
+    // getter 方法
+    public List<CartItemDTO> getItems() {
+        return items;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public Integer getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    // setter 方法
+    public void setItems(List<CartItemDTO> items) {
+        this.items = items;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public void setTotalQuantity(Integer totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+}
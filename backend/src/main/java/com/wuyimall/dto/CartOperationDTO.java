@@ -0,0 +1,44 @@
+package com.wuyimall.dto;
+
+/**
+ * 购物车批量修改中的单个操作DTO
+ * op 取值：add（增加数量）、update（修改数量）、remove（删除）
+ */
+public class CartOperationDTO {
+
+    public static final String ADD = "add";
+    public static final String UPDATE = "update";
+    public static final String REMOVE = "remove";
+
+    private String op; // 操作类型
+
+    private Long productId;
+
+    private Integer quantity; // add 为增加的数量，update 为新数量，remove 时忽略
+
+    // getter 方法
+    public String getOp() {
+        return op;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    // setter 方法
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,48 @@
+package com.wuyimall.dto;
+
+import java.util.List;
+
+/**
+ * 购物车结算请求DTO
+ * 商品和数量取自用户购物车，价格由服务端计算
+ */
+public class CheckoutRequest {
+    private List<Long> productIds; // 要结算的购物车商品ID，为空表示结算整个购物车
+    private String name; // 联系人姓名
+    private String phone; // 联系电话
+    private String address; // 收货地址
+
+    // getter 方法
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    // setter 方法
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+}
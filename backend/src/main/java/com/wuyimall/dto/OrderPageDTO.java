@@ -0,0 +1,32 @@
+package com.wuyimall.dto;
+
+import java.util.List;
+
+/**
+ * 订单游标分页结果DTO
+ * nextCursor 为空表示已经没有下一页
+ */
+public class OrderPageDTO {
+
+    private List<OrderDTO> orders; // 当前页订单
+
+    private String nextCursor; // 下一页游标（格式：创建时间_订单ID）
+
+    // getter 方法
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    // setter 方法
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,53 @@
+package com.wuyimall.dto;
+
+import com.wuyimall.entity.Product;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品搜索结果DTO
+ */
+public class ProductSearchResult {
+
+    private List<Product> products; // 当前页商品（按相关度排序）
+
+    private Integer total; // 命中总数
+
+    private Map<Long, Integer> categoryFacets; // 分类ID -> 命中数
+
+    private Map<String, Integer> priceFacets; // 价格区间 -> 命中数
+
+    // getter 方法
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public Map<Long, Integer> getCategoryFacets() {
+        return categoryFacets;
+    }
+
+    public Map<String, Integer> getPriceFacets() {
+        return priceFacets;
+    }
+
+    // setter 方法
+    public void setProducts(List<Product> products) {
+        this.products = products;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    public void setCategoryFacets(Map<Long, Integer> categoryFacets) {
+        this.categoryFacets = categoryFacets;
+    }
+
+    public void setPriceFacets(Map<String, Integer> priceFacets) {
+        this.priceFacets = priceFacets;
+    }
+}
@@ -0,0 +1,62 @@
+package com.wuyimall.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 销售趋势中的一个时间桶DTO
+ */
+public class SalesPointDTO {
+
+    private LocalDateTime bucketStart; // 时间桶起点
+
+    private BigDecimal revenue; // 销售额
+
+    private long orders; // 订单数
+
+    private long units; // 销量（件）
+
+    public SalesPointDTO() {
+    }
+
+    public SalesPointDTO(LocalDateTime bucketStart, BigDecimal revenue, long orders, long units) {
+        this.bucketStart = bucketStart;
+        this.revenue = revenue;
+        this.orders = orders;
+        this.units = units;
+    }
+
+    // getter 方法
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    // setter 方法
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+}
@@ -0,0 +1,71 @@
+package com.wuyimall.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 热销商品排行DTO
+ */
+public class TopProductDTO {
+
+    private Long productId;
+
+    private String productName;
+
+    private Long categoryId;
+
+    private BigDecimal revenue; // 销售额
+
+    private long units; // 销量（件）
+
+    private long orders; // 订单数
+
+    // getter 方法
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    // setter 方法
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+}
@@ -6,10 +6,14 @@ import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.UniqueConstraint;
 import java.util.Date;
 
 @Entity
-@Table(name = "cart_item")
+@Table(name = "cart_item", uniqueConstraints = {
+    // 加入购物车时按该唯一键 upsert
+    @UniqueConstraint(name = "uk_cart_item_user_product", columnNames = {"user_id", "product_id"})
+})
 public class CartItem {
 
     @Id
@@ -0,0 +1,111 @@
+package com.wuyimall.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 幂等请求记录：同一用户在同一接口上的同一个 Idempotency-Key 只会创建一个订单
+ * 与订单在同一事务中写入，唯一键保证多实例部署时也不会重复下单；
+ * 幂等键区分大小写（utf8mb4_bin），request_hash 用于识别同一个键被用于不同内容的请求
+ */
+@Entity
+@Table(name = "idempotency_record", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_record_user_key", columnNames = {"user_id", "endpoint", "idem_key"})
+}, indexes = {
+    // 按创建时间清理过期记录
+    @Index(name = "idx_idempotency_record_create_time", columnList = "create_time")
+})
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // 接口标识，如 create、checkout
+    @Column(nullable = false, length = 32)
+    private String endpoint;
+
+    @Column(name = "idem_key", nullable = false, columnDefinition = "varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin")
+    private String idemKey;
+
+    // 请求指纹：接口标识和请求体的 SHA-256（十六进制）
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(Long userId, String endpoint, String idemKey, String requestHash, Long orderId) {
+        this.userId = userId;
+        this.endpoint = endpoint;
+        this.idemKey = idemKey;
+        this.requestHash = requestHash;
+        this.orderId = orderId;
+        this.createTime = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getIdemKey() {
+        return idemKey;
+    }
+
+    public void setIdemKey(String idemKey) {
+        this.idemKey = idemKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+}
@@ -0,0 +1,62 @@
+package com.wuyimall.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 库存流水（ledger 模式）：内存台账中的每次扣减/归还在所属事务中写入一行，
+ * 合并写回 product.stock 后删除；启动时 product.stock 加上尚未写回的流水即为可用库存
+ */
+@Entity
+@Table(name = "inventory_journal", indexes = {
+    // 写回和重建时按商品汇总
+    @Index(name = "idx_inventory_journal_product_id", columnList = "product_id")
+})
+public class InventoryJournal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // 库存变化量：扣减为负，归还为正
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+}
@@ -5,7 +5,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "`order`") // order是关键字，使用反引号包裹
+@Table(name = "`order`", // order是关键字，使用反引号包裹
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_order_no", columnNames = "order_no"),
+        // 超时未支付订单按 (status, create_time) 查找
+        indexes = @Index(name = "idx_order_status_create_time", columnList = "status, create_time"))
 public class Order {
 
     @Id
@@ -18,11 +21,16 @@ public class Order {
 
     private BigDecimal totalAmount;
 
-    private Integer status; // 0未支付 1已支付 2已发货 3已完成
+    private Integer status; // 0未支付 1已支付 2已发货 3已完成 4已取消，转换规则见 OrderStatus
 
     @Column(name = "create_time", insertable = false, updatable = false)
     private LocalDateTime createTime;
 
+    // 乐观锁版本号，状态转换的条件更新同时递增
+    @Version
+    @Column(columnDefinition = "bigint NOT NULL DEFAULT 0")
+    private Long version;
+
     // getter 和 setter 方法
     public Long getId() {
         return id;
@@ -72,6 +80,14 @@ public class Order {
         this.createTime = createTime;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // toString() 方法
     @Override
     public String toString() {
@@ -0,0 +1,133 @@
+package com.wuyimall.entity;
+
+import com.wuyimall.event.OrderStatusChangedEvent;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 待分发的订单事件（outbox）
+ * 与订单修改在同一事务中写入，所有处理方都成功（或重试次数用完）后删除；表中只保留还没处理完的事件
+ */
+@Entity
+@Table(name = "order_event")
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+
+    private Long userId;
+
+    @Column(precision = 38, scale = 2)
+    private BigDecimal totalAmount;
+
+    private Integer fromStatus; // 新建订单时为 null
+
+    private Integer toStatus; // 删除订单时为 null
+
+    private LocalDateTime createTime;
+
+    // 已分发的次数（有处理方失败时加一）
+    @Column(columnDefinition = "int NOT NULL DEFAULT 0")
+    private Integer attempts = 0;
+
+    // 上次分发失败、需要重试的处理方（逗号分隔的类名），为 null 表示还没分发过
+    @Column(length = 500)
+    private String failedHandlers;
+
+    public OrderEvent() {
+    }
+
+    public OrderEvent(OrderStatusChangedEvent event) {
+        this.orderId = event.getOrderId();
+        this.userId = event.getUserId();
+        this.totalAmount = event.getTotalAmount();
+        this.fromStatus = event.getFromStatus();
+        this.toStatus = event.getToStatus();
+        this.createTime = LocalDateTime.now();
+    }
+
+    /**
+     * 还原为订单状态变化事件
+     * @return 事件
+     */
+    public OrderStatusChangedEvent toEvent() {
+        return new OrderStatusChangedEvent(orderId, userId, totalAmount, fromStatus, toStatus);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Integer getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(Integer fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public Integer getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(Integer toStatus) {
+        this.toStatus = toStatus;
+    }
+
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getFailedHandlers() {
+        return failedHandlers;
+    }
+
+    public void setFailedHandlers(String failedHandlers) {
+        this.failedHandlers = failedHandlers;
+    }
+}
@@ -8,8 +8,14 @@ import java.time.LocalDateTime;
 @Table(name = "order_item")
 public class OrderItem {
 
+    // 每次从序列表取的ID数量
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // 使用序列（MySQL 下由 order_item_seq 表模拟）分配ID，每次取50个号段在内存中分配，
+    // 这样插入前就能拿到ID，Hibernate 才能把多条 INSERT 合并成 JDBC 批量执行（IDENTITY 会禁用批量插入）
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = OrderItem.ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
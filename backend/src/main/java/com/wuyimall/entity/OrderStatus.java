@@ -0,0 +1,79 @@
+package com.wuyimall.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 订单状态及合法的状态转换
+ * 待付款 -> 已付款 -> 已发货 -> 已完成，待付款的订单可以取消；已完成和已取消为终态
+ */
+public enum OrderStatus {
+
+    PENDING_PAYMENT(0, "待付款"),
+    PAID(1, "已付款"),
+    SHIPPED(2, "已发货"),
+    COMPLETED(3, "已完成"),
+    CANCELLED(4, "已取消");
+
+    private final int code;
+    private final String text;
+
+    OrderStatus(int code, String text) {
+        this.code = code;
+        this.text = text;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 根据状态码获取订单状态
+     * @param code 状态码
+     * @return 订单状态
+     */
+    public static OrderStatus of(Integer code) {
+        if (code != null) {
+            for (OrderStatus status : values()) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+        }
+        throw new RuntimeException("无效的订单状态：" + code);
+    }
+
+    /**
+     * 当前状态可以转换到的状态
+     * @return 下一状态集合
+     */
+    public Set<OrderStatus> nextStatuses() {
+        return switch (this) {
+            case PENDING_PAYMENT -> EnumSet.of(PAID, CANCELLED);
+            case PAID -> EnumSet.of(SHIPPED);
+            case SHIPPED -> EnumSet.of(COMPLETED);
+            default -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    /**
+     * 是否可以从当前状态转换到目标状态
+     * @param target 目标状态
+     * @return 是否合法
+     */
+    public boolean canTransitTo(OrderStatus target) {
+        return nextStatuses().contains(target);
+    }
+
+    /**
+     * 是否为终态（终态的订单可以删除）
+     * @return 是否为终态
+     */
+    public boolean isFinal() {
+        return nextStatuses().isEmpty();
+    }
+}
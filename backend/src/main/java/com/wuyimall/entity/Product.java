@@ -5,10 +5,16 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+    // 前台分页浏览：按分类 + 上架状态过滤，按价格排序
+    @Index(name = "idx_product_category_status_price", columnList = "category_id, status, price"),
+    // 前台分页浏览：不限分类时按上架状态过滤，按价格排序
+    @Index(name = "idx_product_status_price", columnList = "status, price")
+})
 public class Product {
 
     @Id
@@ -0,0 +1,100 @@
+package com.wuyimall.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 销售汇总行（小时表和天表共用的字段）
+ * 每个时间桶有三类行：
+ * productId、categoryId 都为 0 的是全站合计（revenue 为订单实付金额）；
+ * productId 为 0、categoryId 非 0 的是分类合计；
+ * productId 非 0 的是单个商品的合计
+ * 只统计已付款、已发货、已完成的订单，时间桶按订单创建时间划分
+ */
+@MappedSuperclass
+public abstract class SalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart; // 时间桶起点
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal revenue; // 销售额
+
+    @Column(nullable = false)
+    private Long units; // 销量（件）
+
+    @Column(nullable = false)
+    private Long orders; // 订单数
+
+    // getter 和 setter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public void setUnits(Long units) {
+        this.units = units;
+    }
+
+    public Long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(Long orders) {
+        this.orders = orders;
+    }
+}
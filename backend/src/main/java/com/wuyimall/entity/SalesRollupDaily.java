@@ -0,0 +1,16 @@
+package com.wuyimall.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * 按天汇总的销售数据
+ */
+@Entity
+@Table(name = "sales_rollup_daily", uniqueConstraints = {
+    // 增量写入按该唯一键 upsert，范围查询也走该索引
+    @UniqueConstraint(name = "uk_sales_rollup_daily_bucket", columnNames = {"bucket_start", "category_id", "product_id"})
+})
+public class SalesRollupDaily extends SalesRollup {
+}
@@ -0,0 +1,21 @@
+package com.wuyimall.event;
+
+import com.wuyimall.entity.Order;
+import com.wuyimall.entity.OrderItem;
+import java.util.List;
+
+/**
+ * 订单事件的后续处理（统计、刷新库存缓存、通知等）
+ * 由 OrderEventDispatcher 在后台线程中按事件顺序调用，不在下单等请求线程中执行；
+ * 同一批事件涉及的订单和订单商品项由分发器一次查询出来传入，处理方不需要再查询
+ */
+public interface OrderEventHandler {
+
+    /**
+     * 处理一个订单事件
+     * @param event 订单状态变化事件
+     * @param order 订单当前数据，订单已删除时为 null
+     * @param items 订单商品项，订单已删除时为空列表
+     */
+    void handle(OrderStatusChangedEvent event, Order order, List<OrderItem> items);
+}
@@ -0,0 +1,71 @@
+package com.wuyimall.event;
+
+import com.wuyimall.entity.Order;
+import java.math.BigDecimal;
+
+/**
+ * 订单状态变化事件
+ * 新建订单时 fromStatus 为 null，删除订单时 toStatus 为 null；
+ * 状态转换事件由转换参数直接构造，不读取订单，userId 可能为 null（管理员操作）、totalAmount 为 null，
+ * 处理方应以分发器批量加载的订单为准，订单已被删除时需自行处理缺少的金额；
+ * 由订单服务在事务内写入 order_event 表，由 OrderEventDispatcher 在后台线程中分发给 OrderEventHandler
+ */
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    private final Long userId;
+    private final BigDecimal totalAmount;
+    private final Integer fromStatus;
+    private final Integer toStatus;
+
+    public OrderStatusChangedEvent(Order order, Integer fromStatus, Integer toStatus) {
+        this(order.getId(), order.getUserId(), order.getTotalAmount(), fromStatus, toStatus);
+    }
+
+    public OrderStatusChangedEvent(Long orderId, Long userId, BigDecimal totalAmount,
+                                   Integer fromStatus, Integer toStatus) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.totalAmount = totalAmount;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+    }
+
+    /**
+     * 新建订单事件
+     * @param order 订单
+     * @return 事件
+     */
+    public static OrderStatusChangedEvent created(Order order) {
+        return new OrderStatusChangedEvent(order, null, order.getStatus());
+    }
+
+    /**
+     * 删除订单事件
+     * @param order 订单
+     * @return 事件
+     */
+    public static OrderStatusChangedEvent deleted(Order order) {
+        return new OrderStatusChangedEvent(order, order.getStatus(), null);
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Integer getFromStatus() {
+        return fromStatus;
+    }
+
+    public Integer getToStatus() {
+        return toStatus;
+    }
+}
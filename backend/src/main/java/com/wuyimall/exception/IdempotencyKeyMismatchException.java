@@ -0,0 +1,11 @@
+package com.wuyimall.exception;
+
+/**
+ * 同一个 Idempotency-Key 被用于内容不同的请求（应返回 422）
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.wuyimall.repository;
+
+import com.wuyimall.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+
+/**
+ * 幂等请求记录Repository接口
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * 查询幂等记录，走 uk_idempotency_record_user_key 唯一索引
+     * @param userId 用户ID
+     * @param endpoint 接口标识
+     * @param idemKey 幂等键
+     * @return 幂等记录，不存在时返回 null
+     */
+    IdempotencyRecord findByUserIdAndEndpointAndIdemKey(Long userId, String endpoint, String idemKey);
+
+    /**
+     * 删除指定时间之前的记录
+     * @param before 创建时间上界（不包含）
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createTime < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
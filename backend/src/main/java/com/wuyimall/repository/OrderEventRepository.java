@@ -0,0 +1,26 @@
+package com.wuyimall.repository;
+
+import com.wuyimall.entity.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 待分发订单事件Repository接口
+ */
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    /**
+     * 查询在指定时间之前写入、至今还没处理完的事件ID（按写入顺序，从 afterId 之后开始）
+     * @param before 写入时间上界（不包含）
+     * @param afterId 事件ID下界（不包含），用于逐页向后取
+     * @param pageable 只使用其中的页大小
+     * @return 事件ID列表
+     */
+    @Query("select e.id from OrderEvent e where e.createTime < :before and e.id > :afterId order by e.id")
+    List<Long> findIdsCreatedBefore(@Param("before") LocalDateTime before, @Param("afterId") Long afterId,
+                                    Pageable pageable);
+}
@@ -2,6 +2,7 @@ package com.wuyimall.repository;
 
 import com.wuyimall.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +18,13 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     List<OrderItem> findByOrderId(Long orderId);
     
+    /**
+     * 根据一批订单ID一次性查询订单商品项（IN 查询，按ID升序）
+     * @param orderIds 订单ID集合
+     * @return 订单商品项列表
+     */
+    List<OrderItem> findByOrderIdInOrderByIdAsc(Collection<Long> orderIds);
+    
     /**
      * 根据商品ID查询订单商品项列表
      * @param productId 商品ID
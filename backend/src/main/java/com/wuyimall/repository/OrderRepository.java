@@ -1,7 +1,12 @@
 package com.wuyimall.repository;
 
 import com.wuyimall.entity.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,11 +23,20 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
     
     /**
-     * 根据订单号查询订单
+     * 根据订单号查询订单ID，走 uk_order_order_no 唯一索引，只取主键
      * @param orderNo 订单号
-     * @return 订单对象
+     * @return 订单ID，不存在时返回 null
      */
-    Order findByOrderNo(String orderNo);
+    @Query("select o.id from Order o where o.orderNo = :orderNo")
+    Long findIdByOrderNo(@Param("orderNo") String orderNo);
+    
+    /**
+     * 根据订单ID只查询订单状态
+     * @param orderId 订单ID
+     * @return 订单状态，不存在时返回 null
+     */
+    @Query("select o.status from Order o where o.id = :orderId")
+    Integer findStatusById(@Param("orderId") Long orderId);
     
     /**
      * 根据用户ID和订单状态查询订单列表
@@ -37,4 +51,55 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @return 最近5条订单列表
      */
     List<Order> findTop5ByOrderByIdDesc();
+    
+    /**
+     * 按 (create_time, id) 倒序的游标分页查询，走 idx_order_create_time 索引
+     * （InnoDB 二级索引隐含主键，因此索引顺序即 (create_time, id)）
+     * 所有过滤条件传 null 表示不过滤；cursorTime/cursorId 为上一页最后一条记录，首页 cursorId 传 null。
+     * create_time 可以为空（历史数据），MySQL 倒序时空值排在最后：
+     * 游标在非空区间时继续往后取（包括其后的空值行），cursorTime 为 null 时只在空值行中按ID继续
+     * @param status 订单状态
+     * @param userId 用户ID
+     * @param startTime 创建时间下界（包含）
+     * @param endTime 创建时间上界（不包含）
+     * @param cursorTime 游标：上一页最后一条的创建时间（该条创建时间为空时为 null）
+     * @param cursorId 游标：上一页最后一条的ID
+     * @param pageable 只使用其中的页大小
+     * @return 订单列表
+     */
+    @Query("select o from Order o"
+            + " where (:status is null or o.status = :status)"
+            + " and (:userId is null or o.userId = :userId)"
+            + " and (:startTime is null or o.createTime >= :startTime)"
+            + " and (:endTime is null or o.createTime < :endTime)"
+            + " and (:cursorId is null"
+            + "      or (:cursorTime is not null and (o.createTime < :cursorTime"
+            + "          or (o.createTime = :cursorTime and o.id < :cursorId) or o.createTime is null))"
+            + "      or (:cursorTime is null and o.createTime is null and o.id < :cursorId))"
+            + " order by o.createTime desc, o.id desc")
+    List<Order> findPageBefore(@Param("status") Integer status,
+                               @Param("userId") Long userId,
+                               @Param("startTime") LocalDateTime startTime,
+                               @Param("endTime") LocalDateTime endTime,
+                               @Param("cursorTime") LocalDateTime cursorTime,
+                               @Param("cursorId") Long cursorId,
+                               Pageable pageable);
+    
+    /**
+     * 订单状态转换：单条条件 UPDATE，只有订单仍处于 fromStatus（且属于该用户）时才会更新，同时递增版本号；
+     * 并发的支付、取消等请求中只有一个能更新成功，不需要先查询或加悲观锁
+     * @param orderId 订单ID
+     * @param userId 用户ID，传 null 表示不校验（管理员操作）
+     * @param fromStatus 期望的当前状态
+     * @param toStatus 新状态
+     * @return 更新的行数，0 表示订单不存在、不属于该用户或状态已变化
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :toStatus, o.version = o.version + 1"
+            + " where o.id = :orderId and o.status = :fromStatus"
+            + " and (:userId is null or o.userId = :userId)")
+    int transition(@Param("orderId") Long orderId,
+                   @Param("userId") Long userId,
+                   @Param("fromStatus") Integer fromStatus,
+                   @Param("toStatus") Integer toStatus);
 }
@@ -1,13 +1,52 @@
 package com.wuyimall.repository;
 
 import com.wuyimall.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByCategoryId(Long categoryId);
 
+    /**
+     * 按状态分页查询商品（走 idx_product_status_price）
+     * @param status 商品状态
+     * @param pageable 分页和排序
+     * @return 商品分页
+     */
+    Page<Product> findByStatus(Integer status, Pageable pageable);
+
+    /**
+     * 按状态查询一页商品，不统计总数
+     * @param status 商品状态
+     * @param pageable 分页和排序
+     * @return 商品列表
+     */
+    List<Product> findListByStatus(Integer status, Pageable pageable);
+
+    /**
+     * 按分类和状态分页查询商品（走 idx_product_category_status_price）
+     * @param categoryId 分类ID
+     * @param status 商品状态
+     * @param pageable 分页和排序
+     * @return 商品分页
+     */
+    Page<Product> findByCategoryIdAndStatus(Long categoryId, Integer status, Pageable pageable);
+
+    /**
+     * 查询一批商品所属的分类ID
+     * @param ids 商品ID
+     * @return 分类ID（去重）
+     */
+    @Query("select distinct p.categoryId from Product p where p.id in :ids and p.categoryId is not null")
+    List<Long> findCategoryIdsByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * 根据状态统计商品数量
      * @param status 商品状态
@@ -15,4 +54,32 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     long countByStatus(Integer status);
 
-}
\ No newline at end of file
+    /**
+     * 批量查询商品主图，只取ID和图片两列
+     * @param ids 商品ID集合
+     * @return 每行为 [id, mainImage]
+     */
+    @Query("select p.id, p.mainImage from Product p where p.id in :ids")
+    List<Object[]> findMainImagesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 条件扣减库存：仅当库存充足时扣减，单条UPDATE完成检查和写入
+     * @param id 商品ID
+     * @param quantity 扣减数量
+     * @return 受影响行数，0表示商品不存在或库存不足
+     */
+    @Modifying
+    @Query("update Product p set p.stock = p.stock - :quantity where p.id = :id and p.stock >= :quantity")
+    int decreaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    /**
+     * 增加库存（取消订单等场景归还库存）
+     * @param id 商品ID
+     * @param quantity 增加数量
+     * @return 受影响行数
+     */
+    @Modifying
+    @Query("update Product p set p.stock = p.stock + :quantity where p.id = :id")
+    int increaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+}
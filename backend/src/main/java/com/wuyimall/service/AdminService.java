@@ -2,8 +2,13 @@ package com.wuyimall.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.wuyimall.entity.User;
 import com.wuyimall.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 
 @Service
 public class AdminService {
@@ -11,11 +16,71 @@ public class AdminService {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${wuyi.auth.user-status-ttl-seconds:30}")
+    private long userStatusTtlSeconds;
+
+    // 用户ID -> 角色和状态，短时间缓存；禁用、删除用户时主动失效
+    private Cache<Long, UserStatus> userStatusCache;
+
+    @PostConstruct
+    public void initCache() {
+        userStatusCache = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(Duration.ofSeconds(userStatusTtlSeconds))
+                .build();
+    }
+
     public void checkAdmin(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        if (user.getIsAdmin() == null || user.getIsAdmin() == 0) {
+        checkAdmin(userId, null);
+    }
+
+    /**
+     * 校验管理员权限
+     * Token 中的角色声明为 false 时直接拒绝，不访问数据库；
+     * 否则以短时缓存的用户角色和状态为准，用户被禁用或取消管理员后最多 TTL 秒内生效
+     * @param userId 用户ID
+     * @param adminClaim Token 中的角色声明，旧 Token 没有该声明时为 null
+     */
+    public void checkAdmin(Long userId, Boolean adminClaim) {
+        if (Boolean.FALSE.equals(adminClaim)) {
+            throw new RuntimeException("无管理员权限");
+        }
+        UserStatus user = userStatusCache.get(userId, this::loadUserStatus);
+        if (user == null) {
+            throw new RuntimeException("用户不存在");
+        }
+        if (!user.admin) {
             throw new RuntimeException("无管理员权限");
         }
+        if (user.disabled) {
+            throw new RuntimeException("用户已被禁用");
+        }
+    }
+
+    /**
+     * 用户状态或角色变化后使缓存失效
+     * @param userId 用户ID
+     */
+    public void evictUser(Long userId) {
+        userStatusCache.invalidate(userId);
+    }
+
+    private UserStatus loadUserStatus(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        UserStatus status = new UserStatus();
+        status.admin = user.getIsAdmin() != null && user.getIsAdmin() != 0;
+        status.disabled = user.getStatus() != null && user.getStatus() == 1;
+        return status;
+    }
+
+    /**
+     * 缓存的用户角色和状态
+     */
+    private static class UserStatus {
+        private boolean admin;
+        private boolean disabled;
     }
-}
\ No newline at end of file
+}
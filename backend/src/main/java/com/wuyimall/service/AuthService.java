@@ -21,6 +21,10 @@ public class AuthService {
 
     @Autowired
     private JwtUtil jwtUtil;
+
+    @Autowired
+    private DashboardMetrics dashboardMetrics;
+
     /**
      * 用户注册
      * @param request 注册请求参数
@@ -38,6 +42,7 @@ public class AuthService {
         user.setNickname(request.getNickname());
 
         userRepository.save(user);
+        dashboardMetrics.onUserCountChanged(1);
     }
 
     // 登录
@@ -48,7 +53,7 @@ public class AuthService {
         }
 
         // 登录成功 → 发 token
-        String token = jwtUtil.generateToken(user.getId());
+        String token = jwtUtil.generateToken(user.getId(), user.getIsAdmin() != null && user.getIsAdmin() == 1);
         Map<String, Object> map = new HashMap<>();
         map.put("token", token);
         map.put("isAdmin", user.getIsAdmin());
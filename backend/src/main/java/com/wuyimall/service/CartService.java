@@ -1,7 +1,10 @@
 package com.wuyimall.service;
 
+import com.wuyimall.dto.CartDTO;
 import com.wuyimall.dto.CartItemDTO;
+import com.wuyimall.dto.CartOperationDTO;
 import java.util.List;
+import java.util.Map;
 
 public interface CartService {
 
@@ -9,7 +12,15 @@ public interface CartService {
 
     List<CartItemDTO> listCart(Long userId);
 
+    CartDTO getCart(Long userId);
+
     void updateQuantity(Long userId, Long productId, Integer quantity);
 
     void removeItem(Long userId, Long productId);
+
+    CartDTO applyBatch(Long userId, List<CartOperationDTO> operations);
+
+    Map<Long, Integer> getQuantities(Long userId);
+
+    boolean deductItems(Long userId, Map<Long, Integer> quantities);
 }
\ No newline at end of file
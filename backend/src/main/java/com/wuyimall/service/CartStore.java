@@ -0,0 +1,64 @@
+package com.wuyimall.service;
+
+import com.wuyimall.dto.CartOperationDTO;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车存储接口
+ * db 模式直接读写 cart_item 表；memory 模式把购物车保存在内存中，异步批量写回 cart_item
+ */
+public interface CartStore {
+    
+    /**
+     * 读取用户购物车
+     * @param userId 用户ID
+     * @return 商品ID -> 数量（按加入顺序）
+     */
+    Map<Long, Integer> load(Long userId);
+    
+    /**
+     * 增加商品数量，商品不在购物车中时新增
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @param quantity 增加的数量
+     */
+    void add(Long userId, Long productId, int quantity);
+    
+    /**
+     * 修改购物车中已有商品的数量，商品不在购物车中时忽略
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @param quantity 新数量
+     */
+    void update(Long userId, Long productId, int quantity);
+    
+    /**
+     * 从购物车中删除商品
+     * @param userId 用户ID
+     * @param productId 商品ID
+     */
+    void remove(Long userId, Long productId);
+    
+    /**
+     * 清空购物车
+     * @param userId 用户ID
+     */
+    void clear(Long userId);
+    
+    /**
+     * 按顺序执行一批操作，要么全部生效，要么全部不生效
+     * @param userId 用户ID
+     * @param operations 已校验过的操作列表
+     */
+    void apply(Long userId, List<CartOperationDTO> operations);
+    
+    /**
+     * 从购物车中扣减已结算的数量，扣减到0的商品从购物车中删除
+     * 必须在下单事务中调用：扣减随事务提交生效，事务回滚时恢复
+     * @param userId 用户ID
+     * @param quantities 商品ID -> 扣减数量
+     * @return 是否扣减成功；任一商品在购物车中的数量不足时返回 false，调用方应回滚事务
+     */
+    boolean deduct(Long userId, Map<Long, Integer> quantities);
+}
@@ -0,0 +1,254 @@
+package com.wuyimall.service;
+
+import com.wuyimall.entity.Order;
+import com.wuyimall.entity.OrderItem;
+import com.wuyimall.event.OrderEventHandler;
+import com.wuyimall.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 管理后台统计指标（内存）
+ * 商品数、用户数、各状态订单数和订单金额保存在一个不可变快照中，
+ * 订单新建、支付、取消等事件由订单事件分发器在后台增量更新快照（金额取自分发器批量加载的订单），
+ * 读取时直接返回，不访问数据库；
+ * 定时用 SQL COUNT/SUM 对账，修正并发或异常导致的偏差；
+ * 事件处理时订单已被删除且事件中没有金额时，只更新订单数，并尽快对账一次修正金额
+ */
+@Service
+public class DashboardMetrics implements OrderEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardMetrics.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot());
+
+    // 有金额无法增量更新的事件，需要尽快对账
+    private volatile boolean stale;
+
+    /**
+     * 当前统计快照
+     * @return 快照（不可变）
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 订单新建、状态变化或删除后更新订单统计
+     * 订单已删除时（order 为 null）使用事件中记录的金额；状态转换事件不记录金额，此时只移动订单数，
+     * 金额由随后的对账修正
+     * @param event 订单状态变化事件
+     * @param order 订单
+     * @param items 订单商品项
+     */
+    @Override
+    public void handle(OrderStatusChangedEvent event, Order order, List<OrderItem> items) {
+        if (Objects.equals(event.getFromStatus(), event.getToStatus())) {
+            return;
+        }
+        BigDecimal amount;
+        if (order != null) {
+            amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        } else {
+            amount = event.getTotalAmount();
+            if (amount == null) {
+                stale = true;
+            }
+        }
+        snapshot.updateAndGet(s -> s.withOrder(event.getFromStatus(), event.getToStatus(), amount));
+    }
+
+    /**
+     * 商品上下架、新增或删除后更新上架商品数
+     * @param fromStatus 原状态，新增商品时为 null
+     * @param toStatus 新状态，删除商品时为 null
+     */
+    public void onProductStatusChanged(Integer fromStatus, Integer toStatus) {
+        long delta = (isOnShelf(toStatus) ? 1 : 0) - (isOnShelf(fromStatus) ? 1 : 0);
+        if (delta != 0) {
+            snapshot.updateAndGet(s -> s.withProductCount(s.productCount + delta));
+        }
+    }
+
+    /**
+     * 用户注册或删除后更新用户数
+     * @param delta 变化量
+     */
+    public void onUserCountChanged(long delta) {
+        snapshot.updateAndGet(s -> s.withUserCount(s.userCount + delta));
+    }
+
+    /**
+     * 启动时从数据库加载初始值
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        reconcile();
+    }
+
+    /**
+     * 用 SQL 聚合结果对账并替换内存快照
+     * 对账期间提交的事件可能被重复计入或遗漏，偏差会在下一次对账时修正
+     */
+    @Scheduled(initialDelayString = "${wuyi.metrics.reconcile-interval-ms:300000}",
+            fixedDelayString = "${wuyi.metrics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Snapshot fresh = new Snapshot();
+        fresh.productCount = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product WHERE status = 1", Long.class);
+        fresh.userCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `user`", Long.class);
+        jdbcTemplate.query("SELECT status, COUNT(*) AS cnt, COALESCE(SUM(total_amount), 0) AS amount"
+                + " FROM `order` GROUP BY status", rs -> {
+            int value = rs.getInt("status");
+            Integer status = rs.wasNull() ? null : value;
+            fresh.orderCounts.put(status, rs.getLong("cnt"));
+            fresh.orderAmounts.put(status, rs.getBigDecimal("amount"));
+        });
+
+        Snapshot previous = snapshot.getAndSet(fresh);
+        if (previous.productCount != fresh.productCount || previous.userCount != fresh.userCount
+                || previous.getOrderCount() != fresh.getOrderCount()
+                || previous.getTotalSales().compareTo(fresh.getTotalSales()) != 0) {
+            log.info("Dashboard metrics reconciled: orders {} -> {}, sales {} -> {}",
+                    previous.getOrderCount(), fresh.getOrderCount(),
+                    previous.getTotalSales(), fresh.getTotalSales());
+        }
+    }
+
+    /**
+     * 有金额未能增量更新时尽快对账
+     */
+    @Scheduled(fixedDelayString = "${wuyi.metrics.stale-check-interval-ms:1000}")
+    public void reconcileIfStale() {
+        if (stale) {
+            stale = false;
+            reconcile();
+        }
+    }
+
+    private static boolean isOnShelf(Integer status) {
+        return status != null && status == 1;
+    }
+
+    /**
+     * 统计快照，创建后不再修改；更新时复制出新快照
+     */
+    public static class Snapshot {
+        private long productCount;
+        private long userCount;
+        // 订单状态 -> 订单数（状态可能为 null，使用 HashMap）
+        private final Map<Integer, Long> orderCounts = new HashMap<>();
+        // 订单状态 -> 订单金额合计
+        private final Map<Integer, BigDecimal> orderAmounts = new HashMap<>();
+
+        private Snapshot copy() {
+            Snapshot s = new Snapshot();
+            s.productCount = productCount;
+            s.userCount = userCount;
+            s.orderCounts.putAll(orderCounts);
+            s.orderAmounts.putAll(orderAmounts);
+            return s;
+        }
+
+        private Snapshot withProductCount(long count) {
+            Snapshot s = copy();
+            s.productCount = count;
+            return s;
+        }
+
+        private Snapshot withUserCount(long count) {
+            Snapshot s = copy();
+            s.userCount = count;
+            return s;
+        }
+
+        // amount 为 null 时只移动订单数
+        private Snapshot withOrder(Integer fromStatus, Integer toStatus, BigDecimal amount) {
+            Snapshot s = copy();
+            if (fromStatus != null) {
+                s.orderCounts.merge(fromStatus, -1L, Long::sum);
+                if (amount != null) {
+                    s.orderAmounts.merge(fromStatus, amount.negate(), BigDecimal::add);
+                }
+            }
+            if (toStatus != null) {
+                s.orderCounts.merge(toStatus, 1L, Long::sum);
+                if (amount != null) {
+                    s.orderAmounts.merge(toStatus, amount, BigDecimal::add);
+                }
+            }
+            return s;
+        }
+
+        public long getProductCount() {
+            return productCount;
+        }
+
+        public long getUserCount() {
+            return userCount;
+        }
+
+        public long getOrderCount() {
+            long total = 0;
+            for (Long count : orderCounts.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * 所有订单的金额合计（与原先的统计口径一致，包含未支付和已取消订单）
+         * @return 金额合计
+         */
+        public BigDecimal getTotalSales() {
+            BigDecimal total = BigDecimal.ZERO;
+            for (BigDecimal amount : orderAmounts.values()) {
+                total = total.add(amount);
+            }
+            return total;
+        }
+
+        /**
+         * 已支付订单（已付款、已发货、已完成）的金额合计
+         * @return 金额合计
+         */
+        public BigDecimal getPaidSales() {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int status = 1; status <= 3; status++) {
+                total = total.add(orderAmounts.getOrDefault(status, BigDecimal.ZERO));
+            }
+            return total;
+        }
+
+        /**
+         * 各状态订单数
+         * @return 订单状态 -> 订单数
+         */
+        public Map<Integer, Long> getOrderStatusCounts() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            for (Map.Entry<Integer, Long> entry : orderCounts.entrySet()) {
+                if (entry.getKey() != null) {
+                    counts.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.wuyimall.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wuyimall.dto.OrderDTO;
+import com.wuyimall.entity.IdempotencyRecord;
+import com.wuyimall.exception.IdempotencyKeyMismatchException;
+import com.wuyimall.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 下单请求幂等处理（Idempotency-Key 请求头）
+ * 幂等键按用户和接口划分，同一用户在同一接口上的同一个幂等键只执行一次下单：结果保存在容量有限的本地缓存中，
+ * 重复请求直接返回缓存的结果，还在执行中的重复请求最多等待 wait-seconds 秒取第一个请求的结果，不会再次执行；
+ * 每个幂等键同时记录请求指纹（接口标识和请求体的 SHA-256），同一个键被用于内容不同的请求时抛出
+ * IdempotencyKeyMismatchException（返回 422）。
+ * 幂等键、请求指纹与订单ID在下单事务中写入 idempotency_record 表，服务重启或多实例部署时依靠唯一键去重
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    // 幂等键最大长度
+    public static final int MAX_KEY_LENGTH = 64;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${wuyi.idempotency.max-size:100000}")
+    private long maxSize;
+
+    @Value("${wuyi.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${wuyi.idempotency.wait-seconds:10}")
+    private long waitSeconds;
+
+    // 用户ID:接口:幂等键 -> 请求指纹和下单结果（执行中时尚未完成）
+    private Cache<String, Attempt> results;
+
+    @PostConstruct
+    public void initCache() {
+        results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    /**
+     * 按幂等键执行下单
+     * @param userId 用户ID
+     * @param endpoint 接口标识（如 create、checkout）
+     * @param key 幂等键
+     * @param request 请求体，用于计算请求指纹
+     * @param action 下单操作
+     * @return 订单DTO（重复请求返回第一次下单的订单）
+     */
+    public OrderDTO execute(Long userId, String endpoint, String key, Object request, Supplier<OrderDTO> action) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key 长度必须在1到" + MAX_KEY_LENGTH + "之间");
+        }
+        String fingerprint = fingerprint(endpoint, request);
+        String cacheKey = userId + ":" + endpoint + ":" + key;
+        Attempt attempt = new Attempt(fingerprint);
+        Attempt existing = results.asMap().putIfAbsent(cacheKey, attempt);
+        if (existing != null) {
+            checkFingerprint(existing.fingerprint, fingerprint);
+            return await(existing.future);
+        }
+
+        try {
+            OrderDTO result = executeOnce(userId, endpoint, key, fingerprint, action);
+            attempt.future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // 失败的请求没有创建订单，移除后允许客户端用同一个幂等键重试
+            results.asMap().remove(cacheKey, attempt);
+            attempt.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 定时清理过期的幂等记录
+     */
+    @Scheduled(fixedDelayString = "${wuyi.idempotency.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency records", deleted);
+        }
+    }
+
+    private OrderDTO executeOnce(Long userId, String endpoint, String key, String fingerprint,
+                                 Supplier<OrderDTO> action) {
+        // 1. 本实例缓存中没有，可能是重启前或其他实例处理过
+        OrderDTO previous = findPrevious(userId, endpoint, key, fingerprint);
+        if (previous != null) {
+            return previous;
+        }
+
+        // 2. 下单并在同一事务中写入幂等记录
+        try {
+            return transactionTemplate.execute(status -> {
+                OrderDTO result = action.get();
+                idempotencyRecordRepository.save(new IdempotencyRecord(userId, endpoint, key, fingerprint, result.getId()));
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例同时处理了同一个请求并先提交，本次下单已整体回滚
+            previous = findPrevious(userId, endpoint, key, fingerprint);
+            if (previous != null) {
+                return previous;
+            }
+            throw e;
+        }
+    }
+
+    private OrderDTO findPrevious(Long userId, String endpoint, String key, String fingerprint) {
+        IdempotencyRecord record = idempotencyRecordRepository.findByUserIdAndEndpointAndIdemKey(userId, endpoint, key);
+        if (record == null) {
+            return null;
+        }
+        checkFingerprint(record.getRequestHash(), fingerprint);
+        OrderDTO order = orderService.getOrderById(record.getOrderId(), userId);
+        if (order == null) {
+            throw new RuntimeException("该请求已处理，订单已被删除");
+        }
+        return order;
+    }
+
+    private OrderDTO await(CompletableFuture<OrderDTO> future) {
+        try {
+            return future.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("相同的请求正在处理中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待请求结果时被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException("该 Idempotency-Key 已用于内容不同的请求");
+        }
+    }
+
+    /**
+     * 请求指纹：接口标识和请求体 JSON 的 SHA-256
+     */
+    private String fingerprint(String endpoint, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("无法计算请求指纹", e);
+        }
+    }
+
+    /**
+     * 一次幂等请求：请求指纹和下单结果
+     */
+    private static final class Attempt {
+
+        private final String fingerprint;
+
+        private final CompletableFuture<OrderDTO> future = new CompletableFuture<>();
+
+        private Attempt(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
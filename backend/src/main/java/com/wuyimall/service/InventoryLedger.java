@@ -0,0 +1,298 @@
+package com.wuyimall.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存库存台账（wuyi.inventory.mode=ledger 时启用）
+ * 每个商品的可用库存保存在一个 AtomicLong 中，扣减用 CAS 完成，热点商品不再争抢 product 行锁。
+ * 每次扣减/归还都在所属事务中写入一行 inventory_journal，订单提交即流水落库，进程崩溃不会丢失；
+ * 定时任务把流水按商品合并写回 product.stock 并删除，启动时以 product.stock 加上未写回的流水重建台账。
+ * 管理员改写库存时先锁定 product 行再删除该商品的流水，写回任务同样先锁 product 行，
+ * 因此改写与写回对同一商品互斥；内存中的新库存在事务提交后生效。
+ * 已知限制：改写提交到内存生效之间的极短窗口内对该商品的扣减可能不计入台账，
+ * 偏差会在下次重启重建时消除；台账只在单个实例内有效，多实例部署时请使用默认的 db 模式。
+ */
+@Service
+public class InventoryLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${wuyi.inventory.mode:db}")
+    private String mode;
+
+    @Value("${wuyi.inventory.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    // 商品ID -> 台账项（内存中的权威值）
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    // 改写库存的全局序号，用于判断延迟执行的归还是否已被改写覆盖
+    private final AtomicLong resetSeq = new AtomicLong();
+
+    /**
+     * 是否启用内存台账模式
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return "ledger".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * 启动时从数据库重建台账：product.stock 加上尚未写回的流水
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!isEnabled()) {
+            return;
+        }
+        jdbcTemplate.query("SELECT p.id, p.stock + COALESCE(SUM(j.delta), 0) AS stock FROM product p"
+                + " LEFT JOIN inventory_journal j ON j.product_id = p.id GROUP BY p.id, p.stock", rs -> {
+            slots.putIfAbsent(rs.getLong("id"), new Slot(rs.getLong("stock")));
+        });
+        log.info("Inventory ledger loaded {} products", slots.size());
+    }
+
+    /**
+     * 当前的改写序号，延迟执行归还前先记下，归还时传入
+     * @return 改写序号
+     */
+    public long mark() {
+        return resetSeq.get();
+    }
+
+    /**
+     * 在当前事务中写入库存流水，与订单一同提交或回滚
+     * @param deltas 商品ID -> 库存变化量（扣减为负，归还为正）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void journal(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(deltas).entrySet()) {
+            args.add(new Object[]{entry.getKey(), entry.getValue(), now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_journal (product_id, delta, create_time) VALUES (?, ?, ?)", args);
+    }
+
+    /**
+     * 尝试扣减库存（只改内存，流水由调用方在同一事务中写入）
+     * @param productId 商品ID
+     * @param quantity 扣减数量
+     * @return 是否扣减成功（商品不存在或库存不足时返回 false）
+     */
+    public boolean tryReserve(Long productId, int quantity) {
+        Slot slot = slotFor(productId);
+        if (slot == null) {
+            return false;
+        }
+        long current;
+        do {
+            current = slot.available.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!slot.available.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    /**
+     * 归还库存（只改内存）
+     * 如果在 mark 之后该商品的库存被管理员改写过，改写值已经是权威值，本次归还不再生效
+     * @param productId 商品ID
+     * @param quantity 归还数量
+     * @param mark 调用方事先记下的改写序号
+     */
+    public void release(Long productId, int quantity, long mark) {
+        Slot slot = slotFor(productId);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            if (slot.resetAt <= mark) {
+                slot.available.addAndGet(quantity);
+            }
+        }
+    }
+
+    /**
+     * 管理员直接改写库存时在其事务中调用：锁定 product 行后丢弃该商品未写回的流水，
+     * 与 flush 按相同顺序加锁，两者对同一商品互斥
+     * @param productId 商品ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void discardJournal(Long productId) {
+        jdbcTemplate.query("SELECT id FROM product WHERE id = ? FOR UPDATE", rs -> { }, productId);
+        jdbcTemplate.update("DELETE FROM inventory_journal WHERE product_id = ?", productId);
+    }
+
+    /**
+     * 管理员改写库存的事务提交后，以数据库中的新值为准
+     * 原地更新计数器，不替换对象，正在执行的扣减不会作用在已丢弃的计数器上
+     * @param productId 商品ID
+     * @param stock 新库存
+     */
+    public void reset(Long productId, Integer stock) {
+        long value = stock == null ? 0 : stock;
+        Slot slot = slots.computeIfAbsent(productId, k -> new Slot(value));
+        synchronized (slot) {
+            slot.resetAt = resetSeq.incrementAndGet();
+            slot.available.set(value);
+        }
+    }
+
+    /**
+     * 商品删除后移出台账
+     * @param productId 商品ID
+     */
+    public void remove(Long productId) {
+        slots.remove(productId);
+    }
+
+    /**
+     * 查询台账中的可用库存
+     * @param productId 商品ID
+     * @return 可用库存，商品不存在时返回 null
+     */
+    public Long getAvailable(Long productId) {
+        Slot slot = slotFor(productId);
+        return slot == null ? null : slot.available.get();
+    }
+
+    /**
+     * 定时把库存流水合并写回 product 表
+     * 每批在一个事务中：按商品ID升序锁定 product 行，再按主键锁定这批流水（已被改写丢弃的不再出现），
+     * 同一商品的多条流水只产生一条 UPDATE，写回后删除流水；失败时整批回滚，下个周期重试
+     */
+    @Scheduled(fixedDelayString = "${wuyi.inventory.flush-interval-ms:200}")
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            int flushed;
+            do {
+                flushed = transactionTemplate.execute(status -> flushBatch());
+            } while (flushed == flushBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Inventory ledger flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭前写回剩余的流水
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 写回一批流水（在事务中执行）
+     * @return 本批读取的流水条数
+     */
+    private int flushBatch() {
+        List<Long> ids = new ArrayList<>();
+        TreeSet<Long> productIds = new TreeSet<>();
+        jdbcTemplate.query("SELECT id, product_id FROM inventory_journal ORDER BY id LIMIT ?", rs -> {
+            ids.add(rs.getLong("id"));
+            productIds.add(rs.getLong("product_id"));
+        }, flushBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 先锁 product 行，与管理员改写库存的加锁顺序一致
+        jdbcTemplate.query("SELECT id FROM product WHERE id IN (" + placeholders(productIds.size())
+                + ") ORDER BY id FOR UPDATE", rs -> { }, productIds.toArray());
+
+        // 2. 再锁这批流水并按商品汇总
+        Map<Long, Long> deltas = new TreeMap<>();
+        List<Long> locked = new ArrayList<>(ids.size());
+        jdbcTemplate.query("SELECT id, product_id, delta FROM inventory_journal WHERE id IN (" + placeholders(ids.size())
+                + ") FOR UPDATE", rs -> {
+            locked.add(rs.getLong("id"));
+            deltas.merge(rs.getLong("product_id"), rs.getLong("delta"), Long::sum);
+        }, ids.toArray());
+        if (locked.isEmpty()) {
+            return ids.size();
+        }
+
+        // 3. 写回并删除流水
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                args.add(new Object[]{entry.getValue(), entry.getKey()});
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE product SET stock = stock + ? WHERE id = ?", args);
+        jdbcTemplate.update("DELETE FROM inventory_journal WHERE id IN (" + placeholders(locked.size()) + ")",
+                locked.toArray());
+        return ids.size();
+    }
+
+    private Slot slotFor(Long productId) {
+        Slot slot = slots.get(productId);
+        if (slot != null) {
+            return slot;
+        }
+        // 未加载过的商品按需从数据库加载（同样计入未写回的流水）
+        Long stock;
+        try {
+            stock = jdbcTemplate.queryForObject("SELECT p.stock + COALESCE((SELECT SUM(j.delta) FROM inventory_journal j"
+                    + " WHERE j.product_id = p.id), 0) FROM product p WHERE p.id = ?", Long.class, productId);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+        return slots.computeIfAbsent(productId, k -> new Slot(stock));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * 台账项：可用库存和最近一次被改写时的序号
+     */
+    private static final class Slot {
+
+        private final AtomicLong available;
+
+        private volatile long resetAt;
+
+        private Slot(long available) {
+            this.available = new AtomicLong(available);
+        }
+    }
+}
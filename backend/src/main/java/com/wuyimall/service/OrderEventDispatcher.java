@@ -0,0 +1,310 @@
+package com.wuyimall.service;
+
+import com.wuyimall.entity.Order;
+import com.wuyimall.entity.OrderEvent;
+import com.wuyimall.entity.OrderItem;
+import com.wuyimall.event.OrderEventHandler;
+import com.wuyimall.event.OrderStatusChangedEvent;
+import com.wuyimall.repository.OrderEventRepository;
+import com.wuyimall.repository.OrderItemRepository;
+import com.wuyimall.repository.OrderRepository;
+import com.wuyimall.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单事件分发器（outbox）
+ * 订单服务修改订单时调用 append，在同一事务中写入 order_event 表；事务提交后事件ID进入有界内存队列，
+ * 由一个后台线程批量取出，一次查询出这批事件涉及的订单和商品项，依次交给所有 OrderEventHandler 处理，
+ * 所有处理方都成功后批量删除事件。一批事件在一个事务中分发，处理方写入的数据（如销售汇总）与事件的删除一起提交；
+ * 每个处理方在各自的嵌套事务（保存点）中执行，失败时只回滚它自己的写入。队列已满、处理出错或服务重启时，事件仍留在表中，由定时轮询重新放入队列。
+ * 某个处理方失败时在事件上记录失败的处理方并累加分发次数，重试时只执行这些处理方，成功的处理方不会重复执行；
+ * 分发次数达到 max-attempts 后记录错误日志并删除事件，不再重试
+ */
+@Service
+public class OrderEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventDispatcher.class);
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private List<OrderEventHandler> handlers;
+
+    @Value("${wuyi.order-event.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${wuyi.order-event.batch-size:100}")
+    private int batchSize;
+
+    @Value("${wuyi.order-event.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${wuyi.order-event.max-attempts:5}")
+    private int maxAttempts;
+
+    // 已提交、等待分发的事件ID
+    private BlockingQueue<Long> queue;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    // 一批事件的分发事务
+    private TransactionTemplate batchTransaction;
+
+    // 单个处理方的嵌套事务
+    private TransactionTemplate handlerTransaction;
+
+    @PostConstruct
+    public void start() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+        handlerTransaction = new TransactionTemplate(transactionManager);
+        handlerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::dispatchLoop, "order-event-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 记录订单事件：写入 order_event 表
+     * 必须在修改订单的事务中调用，事务回滚时事件一起回滚
+     * @param event 订单状态变化事件
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderStatusChangedEvent event) {
+        Long eventId = orderEventRepository.save(new OrderEvent(event)).getId();
+        TransactionHooks.afterCommit(() -> {
+            // 队列已满时不阻塞请求线程，事件由轮询补发
+            if (!queue.offer(eventId)) {
+                log.debug("Order event queue is full, event {} left for polling", eventId);
+            }
+        });
+    }
+
+    /**
+     * 批量记录订单事件（如批量取消超时订单），用一次 JDBC 批量 INSERT 写入 order_event 表
+     * 事务提交后把生成的事件ID放入内存队列，放不下的由定时轮询补发
+     * @param events 订单状态变化事件
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<OrderStatusChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> eventIds = jdbcTemplate.execute((Connection con) -> {
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO order_event"
+                    + " (order_id, user_id, total_amount, from_status, to_status, create_time)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (OrderStatusChangedEvent event : events) {
+                    ps.setObject(1, event.getOrderId());
+                    ps.setObject(2, event.getUserId());
+                    ps.setBigDecimal(3, event.getTotalAmount());
+                    ps.setObject(4, event.getFromStatus());
+                    ps.setObject(5, event.getToStatus());
+                    ps.setTimestamp(6, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(events.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+        TransactionHooks.afterCommit(() -> {
+            for (Long eventId : eventIds) {
+                if (!queue.offer(eventId)) {
+                    log.debug("Order event queue is full, remaining events from event {} left for polling", eventId);
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * 定时把表中滞留的事件（队列已满、处理失败或重启前未处理）重新放入队列
+     * 只取写入时间超过一个轮询间隔的事件，避免与刚提交、还在队列中的事件重复；
+     * 按ID逐页取，直到表中没有更多事件或队列已满
+     */
+    @Scheduled(initialDelayString = "${wuyi.order-event.poll-interval-ms:5000}",
+            fixedDelayString = "${wuyi.order-event.poll-interval-ms:5000}")
+    public void poll() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(pollIntervalMs));
+        int queued = 0;
+        long afterId = 0;
+        List<Long> eventIds;
+        pages:
+        do {
+            eventIds = orderEventRepository.findIdsCreatedBefore(before, afterId, PageRequest.of(0, batchSize));
+            for (Long eventId : eventIds) {
+                if (!queue.offer(eventId)) {
+                    break pages;
+                }
+                queued++;
+                afterId = eventId;
+            }
+        } while (eventIds.size() == batchSize);
+        if (queued > 0) {
+            log.info("Re-queued {} pending order events", queued);
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<Long> eventIds = new ArrayList<>(batchSize);
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                eventIds.add(first);
+                queue.drainTo(eventIds, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                batchTransaction.executeWithoutResult(status -> dispatch(eventIds));
+            } catch (RuntimeException e) {
+                // 事件留在表中，由轮询重试
+                log.warn("Failed to dispatch {} order events, will retry", eventIds.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 分发一批事件
+     * 同一事件ID可能因轮询被放入队列多次，已处理的事件已从表中删除，不会重复处理
+     */
+    private void dispatch(List<Long> eventIds) {
+        // 1. 取出这批事件（按写入顺序）
+        List<OrderEvent> events = orderEventRepository.findAllById(new LinkedHashSet<>(eventIds));
+        if (events.isEmpty()) {
+            return;
+        }
+        events.sort(Comparator.comparing(OrderEvent::getId));
+
+        // 2. 一次查询出涉及的订单和订单商品项
+        Set<Long> orderIds = new LinkedHashSet<>();
+        for (OrderEvent event : events) {
+            orderIds.add(event.getOrderId());
+        }
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findAllById(orderIds)) {
+            orders.put(order.getId(), order);
+        }
+        Map<Long, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        for (OrderItem item : orderItemRepository.findByOrderIdInOrderByIdAsc(orderIds)) {
+            itemsByOrderId.computeIfAbsent(item.getOrder().getId(), k -> new ArrayList<>()).add(item);
+        }
+
+        // 3. 依次交给处理方（重试时只交给上次失败的处理方）
+        List<Long> handledIds = new ArrayList<>(events.size());
+        List<OrderEvent> failedEvents = new ArrayList<>();
+        for (OrderEvent event : events) {
+            OrderStatusChangedEvent statusEvent = event.toEvent();
+            Order order = orders.get(event.getOrderId());
+            List<OrderItem> items = itemsByOrderId.getOrDefault(event.getOrderId(), Collections.emptyList());
+            Set<String> pending = event.getFailedHandlers() == null
+                    ? null : new HashSet<>(Arrays.asList(event.getFailedHandlers().split(",")));
+            List<String> failed = new ArrayList<>();
+            for (OrderEventHandler handler : handlers) {
+                String name = handlerName(handler);
+                if (pending != null && !pending.contains(name)) {
+                    continue;
+                }
+                try {
+                    handlerTransaction.executeWithoutResult(status -> handler.handle(statusEvent, order, items));
+                } catch (RuntimeException e) {
+                    log.error("Order event {} failed in {}", event.getId(), name, e);
+                    failed.add(name);
+                }
+            }
+
+            int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+            if (failed.isEmpty()) {
+                handledIds.add(event.getId());
+            } else if (attempts >= maxAttempts) {
+                log.error("Order event {} (order {}) dropped after {} attempts, failed handlers: {}",
+                        event.getId(), event.getOrderId(), attempts, failed);
+                handledIds.add(event.getId());
+            } else {
+                event.setAttempts(attempts);
+                event.setFailedHandlers(String.join(",", failed));
+                failedEvents.add(event);
+            }
+        }
+
+        // 4. 记录失败的处理方，删除已处理完的事件
+        if (!failedEvents.isEmpty()) {
+            orderEventRepository.saveAll(failedEvents);
+        }
+        if (!handledIds.isEmpty()) {
+            orderEventRepository.deleteAllByIdInBatch(handledIds);
+        }
+    }
+
+    private static String handlerName(OrderEventHandler handler) {
+        return ClassUtils.getUserClass(handler).getSimpleName();
+    }
+}
@@ -0,0 +1,104 @@
+package com.wuyimall.service;
+
+import com.wuyimall.entity.OrderStatus;
+import com.wuyimall.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 超时未支付订单自动取消
+ * 定时按批取出创建时间早于超时时间的待付款订单，每批在一个事务中：
+ * 锁定订单行、一条 UPDATE 批量改为已取消、一条按商品汇总的 UPDATE 归还库存、一条批量 INSERT 记录订单事件，
+ * 语句数与订单数和商品项数无关
+ */
+@Service
+public class OrderExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExpiryService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private OrderEventDispatcher orderEventDispatcher;
+
+    @Value("${wuyi.order.unpaid-ttl-minutes:30}")
+    private long unpaidTtlMinutes;
+
+    @Value("${wuyi.order.expire-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 取消所有超时未支付的订单
+     */
+    @Scheduled(initialDelayString = "${wuyi.order.expire-interval-ms:60000}",
+            fixedDelayString = "${wuyi.order.expire-interval-ms:60000}")
+    public void cancelExpiredOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(unpaidTtlMinutes);
+        int total = 0;
+        int cancelled;
+        do {
+            cancelled = transactionTemplate.execute(status -> cancelBatch(cutoff));
+            total += cancelled;
+        } while (cancelled == batchSize);
+        if (total > 0) {
+            log.info("Cancelled {} unpaid orders created before {}", total, cutoff);
+        }
+    }
+
+    /**
+     * 取消一批超时订单（在事务中执行）
+     * @param cutoff 创建时间上界
+     * @return 取消的订单数
+     */
+    private int cancelBatch(LocalDateTime cutoff) {
+        // 1. 锁定这批订单；并发的支付请求会等待，本事务提交后其条件更新不再匹配
+        List<OrderStatusChangedEvent> events = jdbcTemplate.query(
+                "SELECT id, user_id, total_amount FROM `order` WHERE status = ? AND create_time < ?"
+                        + " ORDER BY id LIMIT ? FOR UPDATE",
+                (rs, rowNum) -> new OrderStatusChangedEvent(rs.getLong("id"), rs.getLong("user_id"),
+                        rs.getBigDecimal("total_amount"), OrderStatus.PENDING_PAYMENT.getCode(),
+                        OrderStatus.CANCELLED.getCode()),
+                OrderStatus.PENDING_PAYMENT.getCode(), Timestamp.valueOf(cutoff), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<Long> orderIds = new ArrayList<>(events.size());
+        for (OrderStatusChangedEvent event : events) {
+            orderIds.add(event.getOrderId());
+        }
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+
+        // 2. 批量改为已取消
+        List<Object> args = new ArrayList<>();
+        args.add(OrderStatus.CANCELLED.getCode());
+        args.add(OrderStatus.PENDING_PAYMENT.getCode());
+        args.addAll(orderIds);
+        jdbcTemplate.update("UPDATE `order` SET status = ?, version = version + 1"
+                + " WHERE status = ? AND id IN (" + placeholders + ")", args.toArray());
+
+        // 3. 按商品汇总归还库存
+        stockService.releaseOrders(orderIds);
+
+        // 4. 记录订单事件（统计、通知等）
+        orderEventDispatcher.appendAll(events);
+        return events.size();
+    }
+}
@@ -0,0 +1,31 @@
+package com.wuyimall.service;
+
+import com.wuyimall.entity.Order;
+import com.wuyimall.entity.OrderItem;
+import com.wuyimall.entity.OrderStatus;
+import com.wuyimall.event.OrderEventHandler;
+import com.wuyimall.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+/**
+ * 订单通知（由订单事件分发器在后台执行）
+ * 目前没有接入短信、邮件等通知渠道，只记录日志
+ */
+@Service
+public class OrderNotificationService implements OrderEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderNotificationService.class);
+
+    @Override
+    public void handle(OrderStatusChangedEvent event, Order order, List<OrderItem> items) {
+        if (event.getToStatus() == null) {
+            return;
+        }
+        log.info("Notify user {}: order {} is now {}", order != null ? order.getUserId() : event.getUserId(),
+                order != null ? order.getOrderNo() : event.getOrderId(),
+                OrderStatus.of(event.getToStatus()).name());
+    }
+}
@@ -1,8 +1,11 @@
 package com.wuyimall.service;
 
+import com.wuyimall.dto.CheckoutRequest;
 import com.wuyimall.dto.CreateOrderRequest;
 import com.wuyimall.dto.OrderDTO;
+import com.wuyimall.dto.OrderPageDTO;
 import com.wuyimall.entity.Order;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,6 +22,14 @@ public interface OrderService {
      */
     OrderDTO createOrder(CreateOrderRequest request, Long userId);
     
+    /**
+     * 购物车结算：用购物车中的商品下单，价格由服务端计算，在同一事务中从购物车中扣减已结算的数量
+     * @param request 结算请求
+     * @param userId 用户ID
+     * @return 订单DTO
+     */
+    OrderDTO checkout(CheckoutRequest request, Long userId);
+    
     /**
      * 根据用户ID查询订单列表
      * @param userId 用户ID
@@ -26,6 +37,19 @@ public interface OrderService {
      */
     List<OrderDTO> getOrdersByUserId(Long userId);
     
+    /**
+     * 游标分页查询所有用户的订单（管理员使用），按 (创建时间, ID) 倒序
+     * @param status 订单状态，null 表示不过滤
+     * @param userId 用户ID，null 表示不过滤
+     * @param startTime 创建时间下界（包含），null 表示不过滤
+     * @param endTime 创建时间上界（不包含），null 表示不过滤
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 页大小
+     * @return 当前页订单及下一页游标
+     */
+    OrderPageDTO getOrderPage(Integer status, Long userId, LocalDateTime startTime, LocalDateTime endTime,
+                              String cursor, int size);
+    
     /**
      * 根据订单ID查询订单详情
      * @param orderId 订单ID
@@ -66,6 +90,14 @@ public interface OrderService {
      */
     boolean confirmReceipt(Long orderId, Long userId);
     
+    /**
+     * 修改订单状态（管理员使用，如发货、取消）
+     * 只允许 OrderStatus 中定义的合法转换，取消订单时恢复库存
+     * @param orderId 订单ID
+     * @param status 新状态
+     */
+    void changeStatus(Long orderId, Integer status);
+    
     /**
      * 删除订单
      * @param orderId 订单ID
@@ -0,0 +1,297 @@
+package com.wuyimall.service;
+
+import com.wuyimall.entity.Product;
+import com.wuyimall.util.SearchTokenizer;
+import org.springframework.stereotype.Component;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品全文检索倒排索引（内存）
+ * 索引上架商品的名称和描述，名称词频按 NAME_BOOST 加权；
+ * 查询时所有词项都必须命中，按 BM25 打分排序，并统计分类和价格区间分面
+ */
+@Component
+public class ProductSearchIndex {
+
+    // BM25 参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 名称中的词项权重（相当于名称里出现一次算出现三次）
+    private static final int NAME_BOOST = 3;
+
+    // 价格区间分面的分界点
+    private static final int[] PRICE_BOUNDS = {50, 100, 200, 500, 1000};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 商品ID -> 已索引文档
+    private final Map<Long, IndexedDoc> docs = new HashMap<>();
+
+    // 词项 -> (商品ID -> 加权词频)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    // 所有文档加权长度之和，用于计算平均长度
+    private long totalLength;
+
+    /**
+     * 用给定商品重建整个索引
+     * @param products 商品列表
+     */
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            totalLength = 0;
+            for (Product product : products) {
+                indexInternal(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新单个商品的索引；下架商品会被移出索引
+     * @param product 商品
+     */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+            indexInternal(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除商品
+     * @param productId 商品ID
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索
+     * @param query 关键词
+     * @param categoryId 分类过滤，null 表示不过滤
+     * @param minPrice 最低价格（包含），null 表示不过滤
+     * @param maxPrice 最高价格（包含），null 表示不过滤
+     * @param offset 结果偏移
+     * @param limit 返回条数
+     * @return 检索结果
+     */
+    public Hits search(String query, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, int offset, int limit) {
+        List<String> terms = SearchTokenizer.tokenizeForQuery(query);
+        Hits hits = new Hits();
+        if (terms.isEmpty()) {
+            return hits;
+        }
+
+        lock.readLock().lock();
+        try {
+            // 1. 累加每个文档的 BM25 分数，同时记录命中的词项数
+            double avgLength = docs.isEmpty() ? 1 : (double) totalLength / docs.size();
+            Map<Long, Double> scores = new HashMap<>();
+            Map<Long, Integer> matchedTerms = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    // 所有词项都必须命中，缺一个就没有结果
+                    return hits;
+                }
+                double idf = Math.log(1 + (docs.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                    int tf = entry.getValue();
+                    double norm = K1 * (1 - B + B * docs.get(entry.getKey()).length / avgLength);
+                    scores.merge(entry.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                    matchedTerms.merge(entry.getKey(), 1, Integer::sum);
+                }
+            }
+
+            // 2. 过滤并统计分面：分类分面不受分类过滤影响，价格分面不受价格过滤影响
+            List<Long> matched = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : matchedTerms.entrySet()) {
+                if (entry.getValue() != terms.size()) {
+                    continue;
+                }
+                IndexedDoc doc = docs.get(entry.getKey());
+                boolean categoryOk = categoryId == null || categoryId.equals(doc.categoryId);
+                boolean priceOk = inPriceRange(doc.price, minPrice, maxPrice);
+                if (priceOk && doc.categoryId != null) {
+                    hits.categoryFacets.merge(doc.categoryId, 1, Integer::sum);
+                }
+                if (categoryOk) {
+                    hits.priceFacets.merge(priceBucket(doc.price), 1, Integer::sum);
+                }
+                if (categoryOk && priceOk) {
+                    matched.add(doc.id);
+                }
+            }
+
+            // 3. 按分数倒序（同分按ID升序）取当前页
+            matched.sort((a, b) -> {
+                int cmp = Double.compare(scores.get(b), scores.get(a));
+                return cmp != 0 ? cmp : Long.compare(a, b);
+            });
+            hits.total = matched.size();
+            for (int i = Math.max(offset, 0); i < matched.size() && hits.productIds.size() < limit; i++) {
+                hits.productIds.add(matched.get(i));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前索引的商品数
+     * @return 商品数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexInternal(Product product) {
+        if (product.getId() == null || product.getStatus() == null || product.getStatus() != 1) {
+            return;
+        }
+        Map<String, Integer> termFreqs = new HashMap<>();
+        int length = 0;
+        for (String term : SearchTokenizer.tokenizeForIndex(product.getName())) {
+            termFreqs.merge(term, NAME_BOOST, Integer::sum);
+            length += NAME_BOOST;
+        }
+        for (String term : SearchTokenizer.tokenizeForIndex(product.getDescription())) {
+            termFreqs.merge(term, 1, Integer::sum);
+            length += 1;
+        }
+        if (termFreqs.isEmpty()) {
+            return;
+        }
+
+        IndexedDoc doc = new IndexedDoc();
+        doc.id = product.getId();
+        doc.categoryId = product.getCategoryId();
+        doc.price = product.getPrice();
+        doc.length = length;
+        doc.terms = termFreqs.keySet();
+        for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(doc.id, entry.getValue());
+        }
+        docs.put(doc.id, doc);
+        totalLength += length;
+    }
+
+    private void removeInternal(Long productId) {
+        IndexedDoc doc = docs.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= doc.length;
+    }
+
+    private static boolean inPriceRange(BigDecimal price, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        if (price == null) {
+            return false;
+        }
+        return (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    private static String priceBucket(BigDecimal price) {
+        if (price == null) {
+            return "未定价";
+        }
+        int lower = 0;
+        for (int bound : PRICE_BOUNDS) {
+            if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+                return lower + "-" + bound;
+            }
+            lower = bound;
+        }
+        return lower + "+";
+    }
+
+    /**
+     * 已索引的文档
+     */
+    private static class IndexedDoc {
+        private long id;
+        private Long categoryId;
+        private BigDecimal price;
+        private int length;
+        private Collection<String> terms;
+    }
+
+    /**
+     * 检索结果：当前页商品ID（按相关度排序）、命中总数和分面统计
+     */
+    public static class Hits {
+        private final List<Long> productIds = new ArrayList<>();
+        private int total;
+        private final Map<Long, Integer> categoryFacets = new TreeMap<>();
+        private final Map<String, Integer> priceFacets = new LinkedHashMap<>();
+
+        private Hits() {
+            // 价格区间按从低到高的顺序列出，没有命中的区间计数为0
+            int lower = 0;
+            for (int bound : PRICE_BOUNDS) {
+                priceFacets.put(lower + "-" + bound, 0);
+                lower = bound;
+            }
+            priceFacets.put(lower + "+", 0);
+        }
+
+        public List<Long> getProductIds() {
+            return Collections.unmodifiableList(productIds);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public Map<Long, Integer> getCategoryFacets() {
+            return categoryFacets;
+        }
+
+        public Map<String, Integer> getPriceFacets() {
+            return priceFacets;
+        }
+    }
+}
@@ -1,9 +1,77 @@
 package com.wuyimall.service;
 
+import com.wuyimall.dto.ProductSearchResult;
 import com.wuyimall.entity.Product;
+import org.springframework.data.domain.Page;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     List<Product> listByCategory(Long categoryId);
     Product getById(Long id);
-}
\ No newline at end of file
+
+    /**
+     * 批量取商品：命中缓存的直接返回，未命中的用一次 IN 查询加载并放入缓存
+     * @param ids 商品ID
+     * @return 商品ID -> 商品，不存在的商品不在结果中
+     */
+    Map<Long, Product> getByIds(Collection<Long> ids);
+
+    /**
+     * 分页浏览上架商品
+     * @param categoryId 分类ID，null 表示全部分类
+     * @param page 页码（从0开始）
+     * @param size 每页条数
+     * @param sort 排序字段：price、stock、id
+     * @param direction 排序方向：asc、desc
+     * @return 商品分页
+     */
+    Page<Product> browse(Long categoryId, int page, int size, String sort, String direction);
+
+    /**
+     * 按关键词搜索上架商品（名称和描述），支持分类和价格过滤
+     * @param keyword 关键词
+     * @param categoryId 分类ID，null 表示不过滤
+     * @param minPrice 最低价格，null 表示不过滤
+     * @param maxPrice 最高价格，null 表示不过滤
+     * @param page 页码（从0开始）
+     * @param size 每页条数
+     * @return 搜索结果及分面统计
+     */
+    ProductSearchResult search(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                               int page, int size);
+
+    /**
+     * 新增或更新商品，并使相关缓存失效
+     * @param product 商品
+     * @return 保存后的商品
+     */
+    Product save(Product product);
+
+    /**
+     * 删除商品，并使相关缓存失效
+     * @param id 商品ID
+     */
+    void delete(Long id);
+
+    /**
+     * 上架/下架商品，并使相关缓存失效
+     * @param id 商品ID
+     * @param status 商品状态
+     */
+    void changeStatus(Long id, Integer status);
+
+    /**
+     * 订单扣减或归还库存后，使这些商品的详情缓存及所属分类、全部商品列表缓存失效，下次读取时加载最新库存
+     * @param productIds 商品ID
+     */
+    void evictStock(Collection<Long> productIds);
+
+    /**
+     * 商品缓存统计信息（命中、未命中、淘汰次数等）
+     * @return 各缓存的统计信息
+     */
+    Map<String, Object> getCacheStats();
+}
@@ -0,0 +1,37 @@
+package com.wuyimall.service;
+
+import com.wuyimall.entity.Order;
+import com.wuyimall.entity.OrderItem;
+import com.wuyimall.entity.OrderStatus;
+import com.wuyimall.event.OrderEventHandler;
+import com.wuyimall.event.OrderStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 下单扣减库存、取消订单归还库存后，使相关商品的详情和列表缓存失效（由订单事件分发器在后台执行），
+ * 商品详情页和商品列表不必等缓存过期才看到新库存
+ */
+@Service
+public class ProductStockRefresher implements OrderEventHandler {
+
+    @Autowired
+    private ProductService productService;
+
+    @Override
+    public void handle(OrderStatusChangedEvent event, Order order, List<OrderItem> items) {
+        boolean created = event.getFromStatus() == null && event.getToStatus() != null;
+        boolean cancelled = event.getToStatus() != null && event.getToStatus() == OrderStatus.CANCELLED.getCode();
+        if ((!created && !cancelled) || items.isEmpty()) {
+            return;
+        }
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        productService.evictStock(productIds);
+    }
+}
@@ -0,0 +1,340 @@
+package com.wuyimall.service;
+
+import com.wuyimall.dto.SalesPointDTO;
+import com.wuyimall.dto.TopProductDTO;
+import com.wuyimall.entity.Order;
+import com.wuyimall.entity.OrderItem;
+import com.wuyimall.entity.Product;
+import com.wuyimall.event.OrderEventHandler;
+import com.wuyimall.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 销售统计服务
+ * 订单进入或离开“已售”状态（已付款、已发货、已完成）时，由订单事件分发器把增减量批量 upsert 到小时表和天表，
+ * 写入与 order_event 的删除在同一事务中提交，服务异常退出不会丢失增量；查询只读取汇总表，不扫描 order_item。
+ * 汇总表可以通过 rebuild 从订单数据全量重建（例如首次上线时）
+ */
+@Service
+public class SalesAnalyticsService implements OrderEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesAnalyticsService.class);
+
+    // 按小时查询允许的最大天数
+    private static final int MAX_HOURLY_DAYS = 31;
+
+    // 按天查询允许的最大天数
+    private static final int MAX_DAILY_DAYS = 366;
+
+    // 合计行使用的商品ID / 分类ID
+    private static final long ALL = 0L;
+
+    private static final String HOURLY_TABLE = "sales_rollup_hourly";
+    private static final String DAILY_TABLE = "sales_rollup_daily";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * 订单状态变化后把销售增量写入汇总表（由 OrderEventDispatcher 在分发事务中调用）
+     * 删除订单不会撤销已经发生的销售，全量重建时才会剔除已删除的订单；
+     * 事件处理前订单已被删除时没有商品项可统计，跳过该事件（与全量重建的结果一致）
+     * @param event 订单状态变化事件
+     * @param order 订单
+     * @param items 订单商品项
+     */
+    @Override
+    public void handle(OrderStatusChangedEvent event, Order order, List<OrderItem> items) {
+        if (event.getToStatus() == null) {
+            return;
+        }
+        int sign = (isSale(event.getToStatus()) ? 1 : 0) - (isSale(event.getFromStatus()) ? 1 : 0);
+        if (sign == 0) {
+            return;
+        }
+        if (order == null) {
+            log.info("Order {} was deleted before its sales event was handled, skipped", event.getOrderId());
+            return;
+        }
+        if (order.getCreateTime() == null) {
+            return;
+        }
+        LocalDateTime bucket = order.getCreateTime().truncatedTo(ChronoUnit.HOURS);
+
+        // 按商品和分类合并订单商品项（商品一次批量取出）
+        Set<Long> productIds = new HashSet<>();
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<Long, Product> products = productService.getByIds(productIds);
+        Map<Long, Delta> byProduct = new HashMap<>();
+        Map<Long, Delta> byCategory = new HashMap<>();
+        long totalUnits = 0;
+        for (OrderItem item : items) {
+            Product product = products.get(item.getProductId());
+            Long categoryId = product != null ? product.getCategoryId() : null;
+            BigDecimal revenue = item.getTotalPrice() != null ? item.getTotalPrice() : BigDecimal.ZERO;
+            int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+
+            Delta productDelta = byProduct.computeIfAbsent(item.getProductId(), k -> new Delta(categoryId));
+            productDelta.add(revenue, quantity, 0);
+            if (categoryId != null) {
+                byCategory.computeIfAbsent(categoryId, k -> new Delta(categoryId)).add(revenue, quantity, 0);
+            }
+            totalUnits += quantity;
+        }
+
+        BigDecimal signed = BigDecimal.valueOf(sign);
+        BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        Map<RollupKey, Delta> hourly = new HashMap<>();
+        accumulate(hourly, new RollupKey(bucket, ALL, ALL), amount.multiply(signed), sign * totalUnits, sign);
+        for (Map.Entry<Long, Delta> entry : byCategory.entrySet()) {
+            Delta d = entry.getValue();
+            accumulate(hourly, new RollupKey(bucket, entry.getKey(), ALL), d.revenue.multiply(signed), sign * d.units, sign);
+        }
+        for (Map.Entry<Long, Delta> entry : byProduct.entrySet()) {
+            Delta d = entry.getValue();
+            long categoryId = d.categoryId != null ? d.categoryId : ALL;
+            accumulate(hourly, new RollupKey(bucket, categoryId, entry.getKey()), d.revenue.multiply(signed), sign * d.units, sign);
+        }
+
+        // 同一订单的增量再按天合并，两张表各一次批量 upsert
+        Map<RollupKey, Delta> daily = new HashMap<>();
+        for (Map.Entry<RollupKey, Delta> entry : hourly.entrySet()) {
+            RollupKey key = entry.getKey();
+            Delta d = entry.getValue();
+            accumulate(daily, new RollupKey(bucket.toLocalDate().atStartOfDay(), key.categoryId, key.productId),
+                    d.revenue, d.units, d.orders);
+        }
+        upsert(HOURLY_TABLE, hourly);
+        upsert(DAILY_TABLE, daily);
+    }
+
+    /**
+     * 从订单数据全量重建汇总表
+     * 重建期间提交的订单变化可能被重复计入，建议在业务低峰期执行
+     */
+    public void rebuild() {
+        String bucket = "DATE_FORMAT(o.create_time, '%Y-%m-%d %H:00:00')";
+        String columns = " (bucket_start, category_id, product_id, revenue, units, orders) ";
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM " + HOURLY_TABLE);
+            jdbcTemplate.update("DELETE FROM " + DAILY_TABLE);
+
+            // 商品行
+            jdbcTemplate.update("INSERT INTO " + HOURLY_TABLE + columns
+                    + "SELECT " + bucket + ", COALESCE(p.category_id, 0), oi.product_id,"
+                    + " SUM(oi.total_price), SUM(oi.quantity), COUNT(DISTINCT o.id)"
+                    + " FROM `order` o JOIN order_item oi ON oi.order_id = o.id"
+                    + " LEFT JOIN product p ON p.id = oi.product_id"
+                    + " WHERE o.status IN (1, 2, 3) AND o.create_time IS NOT NULL"
+                    + " GROUP BY 1, 2, 3");
+            // 分类合计行
+            jdbcTemplate.update("INSERT INTO " + HOURLY_TABLE + columns
+                    + "SELECT " + bucket + ", p.category_id, 0,"
+                    + " SUM(oi.total_price), SUM(oi.quantity), COUNT(DISTINCT o.id)"
+                    + " FROM `order` o JOIN order_item oi ON oi.order_id = o.id"
+                    + " JOIN product p ON p.id = oi.product_id"
+                    + " WHERE o.status IN (1, 2, 3) AND o.create_time IS NOT NULL AND p.category_id IS NOT NULL"
+                    + " GROUP BY 1, 2");
+            // 全站合计行：销售额取订单实付金额
+            jdbcTemplate.update("INSERT INTO " + HOURLY_TABLE + columns
+                    + "SELECT " + bucket + ", 0, 0,"
+                    + " SUM(o.total_amount), COALESCE(SUM(q.units), 0), COUNT(*)"
+                    + " FROM `order` o LEFT JOIN (SELECT order_id, SUM(quantity) AS units"
+                    + " FROM order_item GROUP BY order_id) q ON q.order_id = o.id"
+                    + " WHERE o.status IN (1, 2, 3) AND o.create_time IS NOT NULL"
+                    + " GROUP BY 1");
+            // 天表由小时表汇总
+            jdbcTemplate.update("INSERT INTO " + DAILY_TABLE + columns
+                    + "SELECT DATE(bucket_start), category_id, product_id, SUM(revenue), SUM(units), SUM(orders)"
+                    + " FROM " + HOURLY_TABLE + " GROUP BY DATE(bucket_start), category_id, product_id");
+        });
+        log.info("Sales rollups rebuilt");
+    }
+
+    /**
+     * 查询销售趋势，没有销售的时间桶补0
+     * @param hourly true 按小时，false 按天
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param categoryId 分类ID，null 表示全站
+     * @return 按时间升序的时间桶列表
+     */
+    public List<SalesPointDTO> getSeries(boolean hourly, LocalDate startDate, LocalDate endDate, Long categoryId) {
+        checkRange(startDate, endDate, hourly ? MAX_HOURLY_DAYS : MAX_DAILY_DAYS);
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+
+        Map<LocalDateTime, SalesPointDTO> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT bucket_start, revenue, units, orders FROM " + (hourly ? HOURLY_TABLE : DAILY_TABLE)
+                        + " WHERE category_id = ? AND product_id = 0 AND bucket_start >= ? AND bucket_start < ?",
+                rs -> {
+                    LocalDateTime bucketStart = rs.getTimestamp("bucket_start").toLocalDateTime();
+                    rows.put(bucketStart, new SalesPointDTO(bucketStart, rs.getBigDecimal("revenue"),
+                            rs.getLong("orders"), rs.getLong("units")));
+                },
+                categoryId != null ? categoryId : ALL, Timestamp.valueOf(start), Timestamp.valueOf(end));
+
+        List<SalesPointDTO> series = new ArrayList<>();
+        for (LocalDateTime t = start; t.isBefore(end); t = hourly ? t.plusHours(1) : t.plusDays(1)) {
+            SalesPointDTO point = rows.get(t);
+            series.add(point != null ? point : new SalesPointDTO(t, BigDecimal.ZERO, 0, 0));
+        }
+        return series;
+    }
+
+    /**
+     * 查询热销商品（按销售额倒序）
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param categoryId 分类ID，null 表示不限
+     * @param limit 返回条数
+     * @return 热销商品列表
+     */
+    public List<TopProductDTO> getTopProducts(LocalDate startDate, LocalDate endDate, Long categoryId, int limit) {
+        checkRange(startDate, endDate, MAX_DAILY_DAYS);
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(startDate.atStartOfDay()));
+        args.add(Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+        String sql = "SELECT product_id, MAX(category_id) AS category_id, SUM(revenue) AS revenue,"
+                + " SUM(units) AS units, SUM(orders) AS orders FROM " + DAILY_TABLE
+                + " WHERE product_id <> 0 AND bucket_start >= ? AND bucket_start < ?";
+        if (categoryId != null) {
+            sql += " AND category_id = ?";
+            args.add(categoryId);
+        }
+        sql += " GROUP BY product_id ORDER BY revenue DESC, product_id LIMIT ?";
+        args.add(limit);
+
+        List<TopProductDTO> result = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            TopProductDTO dto = new TopProductDTO();
+            dto.setProductId(rs.getLong("product_id"));
+            long category = rs.getLong("category_id");
+            dto.setCategoryId(category != ALL ? category : null);
+            dto.setRevenue(rs.getBigDecimal("revenue"));
+            dto.setUnits(rs.getLong("units"));
+            dto.setOrders(rs.getLong("orders"));
+            return dto;
+        }, args.toArray());
+
+        // 商品名称从商品缓存中批量取
+        Set<Long> productIds = new HashSet<>();
+        for (TopProductDTO dto : result) {
+            productIds.add(dto.getProductId());
+        }
+        Map<Long, Product> products = productService.getByIds(productIds);
+        for (TopProductDTO dto : result) {
+            Product product = products.get(dto.getProductId());
+            dto.setProductName(product != null ? product.getName() : "已删除商品");
+        }
+        return result;
+    }
+
+    private void checkRange(LocalDate startDate, LocalDate endDate, int maxDays) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new RuntimeException("无效的时间范围");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) + 1 > maxDays) {
+            throw new RuntimeException("时间范围不能超过" + maxDays + "天");
+        }
+    }
+
+    private static void accumulate(Map<RollupKey, Delta> deltas, RollupKey key, BigDecimal revenue, long units, long orders) {
+        deltas.computeIfAbsent(key, k -> new Delta(null)).add(revenue, units, orders);
+    }
+
+    private void upsert(String table, Map<RollupKey, Delta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<RollupKey, Delta> entry : deltas.entrySet()) {
+            RollupKey key = entry.getKey();
+            Delta d = entry.getValue();
+            args.add(new Object[]{Timestamp.valueOf(key.bucketStart), key.categoryId, key.productId,
+                    d.revenue, d.units, d.orders});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + table
+                + " (bucket_start, category_id, product_id, revenue, units, orders) VALUES (?, ?, ?, ?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue),"
+                + " units = units + VALUES(units), orders = orders + VALUES(orders)", args);
+    }
+
+    private static boolean isSale(Integer status) {
+        return status != null && status >= 1 && status <= 3;
+    }
+
+    /**
+     * 汇总行的唯一键
+     */
+    private static final class RollupKey {
+        private final LocalDateTime bucketStart;
+        private final long categoryId;
+        private final long productId;
+
+        private RollupKey(LocalDateTime bucketStart, long categoryId, long productId) {
+            this.bucketStart = bucketStart;
+            this.categoryId = categoryId;
+            this.productId = productId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RollupKey)) {
+                return false;
+            }
+            RollupKey other = (RollupKey) o;
+            return categoryId == other.categoryId && productId == other.productId
+                    && bucketStart.equals(other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucketStart, categoryId, productId);
+        }
+    }
+
+    /**
+     * 销售增量
+     */
+    private static final class Delta {
+        private final Long categoryId;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long units;
+        private long orders;
+
+        private Delta(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        private void add(BigDecimal revenue, long units, long orders) {
+            this.revenue = this.revenue.add(revenue);
+            this.units += units;
+            this.orders += orders;
+        }
+    }
+}
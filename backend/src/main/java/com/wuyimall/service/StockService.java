@@ -0,0 +1,48 @@
+package com.wuyimall.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存服务接口
+ * 负责下单扣减库存和取消订单归还库存
+ */
+public interface StockService {
+    
+    /**
+     * 扣减库存
+     * 按商品ID升序逐个执行条件扣减（避免并发下单时互相死锁），
+     * 所有商品都会尝试一遍，以便一次性报告所有库存不足的商品；
+     * 有失败时由调用方抛出异常回滚整个事务
+     * @param quantities 商品ID -> 扣减数量
+     * @return 库存不足（或商品不存在）的商品ID列表，为空表示全部扣减成功
+     */
+    List<Long> reserve(Map<Long, Integer> quantities);
+    
+    /**
+     * 归还库存
+     * @param quantities 商品ID -> 归还数量
+     */
+    void release(Map<Long, Integer> quantities);
+    
+    /**
+     * 归还一批订单占用的库存
+     * 一次查询按商品汇总这些订单的购买数量，再按商品ID顺序一次批量归还（与扣减的加锁顺序一致）
+     * @param orderIds 订单ID
+     */
+    void releaseOrders(Collection<Long> orderIds);
+    
+    /**
+     * 管理员直接修改商品库存后调用，使库存缓存（如内存台账）与数据库一致
+     * @param productId 商品ID
+     * @param stock 新库存
+     */
+    void syncStock(Long productId, Integer stock);
+    
+    /**
+     * 商品删除后调用，清理该商品的库存缓存
+     * @param productId 商品ID
+     */
+    void removeProduct(Long productId);
+}
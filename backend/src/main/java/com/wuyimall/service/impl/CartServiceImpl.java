@@ -1,95 +1,172 @@
 package com.wuyimall.service.impl;
 
+import com.wuyimall.dto.CartDTO;
 import com.wuyimall.dto.CartItemDTO;
-import com.wuyimall.entity.CartItem;
+import com.wuyimall.dto.CartOperationDTO;
 import com.wuyimall.entity.Product;
-import com.wuyimall.repository.CartItemRepository;
 import com.wuyimall.repository.ProductRepository;
 import com.wuyimall.service.CartService;
+import com.wuyimall.service.CartStore;
+import com.wuyimall.service.ProductService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 购物车服务实现类
+ * 购物车数据通过 CartStore 读写，wuyi.cart.store 选择存储方式：
+ * db（默认）直接读写 cart_item 表，memory 保存在内存中并异步批量写回
+ */
 @Service
 public class CartServiceImpl implements CartService {
 
-    @Autowired
-    private CartItemRepository cartItemRepository;
+    // 批量修改单次最多的操作数
+    private static final int MAX_BATCH_SIZE = 200;
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DbCartStore dbCartStore;
+
+    @Autowired
+    private MemoryCartStore memoryCartStore;
+
+    @Value("${wuyi.cart.store:db}")
+    private String storeMode;
+
+    private CartStore cartStore;
+
+    @PostConstruct
+    public void initStore() {
+        cartStore = "memory".equalsIgnoreCase(storeMode) ? memoryCartStore : dbCartStore;
+    }
+
     @Override
-    @Transactional
     public void addToCart(Long userId, Long productId, Integer quantity) {
-        // 1. 检查商品是否存在
-        Product product = productRepository.findById(productId).orElse(null);
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("商品数量无效");
+        }
+        // 商品和库存从商品缓存中检查，购物车只做一次 upsert；
+        // 购物车累计数量不在这里校验，下单时扣减库存才是准确的库存校验
+        Product product = productService.getById(productId);
         if (product == null) {
             throw new RuntimeException("商品不存在");
         }
-        System.err.println("productId: " + productId);
-        // 2. 检查库存是否充足
         if (product.getStock() < quantity) {
             throw new RuntimeException("库存不足");
         }
-        
-        // 3. 处理购物车添加逻辑
-        CartItem existingItem = cartItemRepository.findByUserIdAndProductId(userId, productId);
-        
-        if (existingItem != null) {
-            // 检查添加后总数量是否超过库存
-            int totalQuantity = existingItem.getQuantity() + quantity;
-            if (totalQuantity > product.getStock()) {
-                throw new RuntimeException("库存不足");
-            }
-            existingItem.setQuantity(totalQuantity);
-            cartItemRepository.save(existingItem);
-        } else {
-            CartItem newItem = new CartItem();
-            newItem.setUserId(userId);
-            newItem.setProductId(productId);
-            newItem.setQuantity(quantity);
-            cartItemRepository.save(newItem);
-        }
+        cartStore.add(userId, productId, quantity);
     }
 
     @Override
     public List<CartItemDTO> listCart(Long userId) {
-        List<CartItem> cartItems = cartItemRepository.findByUserId(userId);
-        List<CartItemDTO> cartItemDTOs = new ArrayList<>();
+        return getCart(userId).getItems();
+    }
+
+    @Override
+    public CartDTO getCart(Long userId) {
+        Map<Long, Integer> cartItems = cartStore.load(userId);
+        
+        // 一次查询取出购物车中的所有商品
+        Map<Long, Product> products = new HashMap<>();
+        if (!cartItems.isEmpty()) {
+            for (Product product : productRepository.findAllById(cartItems.keySet())) {
+                products.put(product.getId(), product);
+            }
+        }
         
-        for (CartItem cartItem : cartItems) {
-            Product product = productRepository.findById(cartItem.getProductId()).orElse(null);
+        // 组装商品项的同时累计合计金额和件数
+        List<CartItemDTO> cartItemDTOs = new ArrayList<>(cartItems.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int totalQuantity = 0;
+        for (Map.Entry<Long, Integer> cartItem : cartItems.entrySet()) {
+            Product product = products.get(cartItem.getKey());
             if (product != null) {
                 CartItemDTO cartItemDTO = new CartItemDTO();
                 cartItemDTO.setProductId(product.getId());
                 cartItemDTO.setProductName(product.getName());
                 cartItemDTO.setProductImage(product.getMainImage());
                 cartItemDTO.setProductPrice(product.getPrice());
-                cartItemDTO.setQuantity(cartItem.getQuantity());
-                cartItemDTO.setTotalPrice(product.getPrice().multiply(new java.math.BigDecimal(cartItem.getQuantity())));
+                cartItemDTO.setQuantity(cartItem.getValue());
+                cartItemDTO.setTotalPrice(product.getPrice().multiply(new BigDecimal(cartItem.getValue())));
                 cartItemDTOs.add(cartItemDTO);
+                
+                subtotal = subtotal.add(cartItemDTO.getTotalPrice());
+                totalQuantity += cartItem.getValue();
             }
         }
         
-        return cartItemDTOs;
+        CartDTO cart = new CartDTO();
+        cart.setItems(cartItemDTOs);
+        cart.setSubtotal(subtotal);
+        cart.setTotalQuantity(totalQuantity);
+        return cart;
     }
 
     @Override
-    @Transactional
     public void updateQuantity(Long userId, Long productId, Integer quantity) {
-        CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId);
-        if (cartItem != null) {
-            cartItem.setQuantity(quantity);
-            cartItemRepository.save(cartItem);
-        }
+        cartStore.update(userId, productId, quantity);
     }
 
     @Override
-    @Transactional
     public void removeItem(Long userId, Long productId) {
-        cartItemRepository.deleteByUserIdAndProductId(userId, productId);
+        cartStore.remove(userId, productId);
+    }
+
+    @Override
+    public CartDTO applyBatch(Long userId, List<CartOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return getCart(userId);
+        }
+        if (operations.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("单次最多修改" + MAX_BATCH_SIZE + "项");
+        }
+        // 先校验全部操作，任何一项不合法都不执行
+        for (CartOperationDTO operation : operations) {
+            if (operation.getProductId() == null) {
+                throw new RuntimeException("缺少商品ID");
+            }
+            String op = operation.getOp();
+            if (CartOperationDTO.REMOVE.equals(op)) {
+                continue;
+            }
+            if (!CartOperationDTO.ADD.equals(op) && !CartOperationDTO.UPDATE.equals(op)) {
+                throw new RuntimeException("不支持的操作：" + op);
+            }
+            if (operation.getQuantity() == null || operation.getQuantity() <= 0) {
+                throw new RuntimeException("商品数量无效");
+            }
+            if (CartOperationDTO.ADD.equals(op)) {
+                Product product = productService.getById(operation.getProductId());
+                if (product == null) {
+                    throw new RuntimeException("商品不存在：" + operation.getProductId());
+                }
+                if (product.getStock() < operation.getQuantity()) {
+                    throw new RuntimeException("库存不足：" + product.getName());
+                }
+            }
+        }
+        cartStore.apply(userId, operations);
+        return getCart(userId);
+    }
+
+    @Override
+    public Map<Long, Integer> getQuantities(Long userId) {
+        return cartStore.load(userId);
+    }
+
+    @Override
+    public boolean deductItems(Long userId, Map<Long, Integer> quantities) {
+        return cartStore.deduct(userId, quantities);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package com.wuyimall.service.impl;
+
+import com.wuyimall.dto.CartOperationDTO;
+import com.wuyimall.entity.CartItem;
+import com.wuyimall.repository.CartItemRepository;
+import com.wuyimall.service.CartStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 购物车存储（db 模式）：每次操作直接读写 cart_item 表
+ */
+@Service
+public class DbCartStore implements CartStore {
+    
+    // 依赖 (user_id, product_id) 唯一键，新增或累加数量
+    private static final String ADD_SQL = "INSERT INTO cart_item (user_id, product_id, quantity) VALUES (?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public Map<Long, Integer> load(Long userId) {
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        for (CartItem cartItem : cartItemRepository.findByUserId(userId)) {
+            items.merge(cartItem.getProductId(), cartItem.getQuantity(), Integer::sum);
+        }
+        return items;
+    }
+    
+    @Override
+    public void add(Long userId, Long productId, int quantity) {
+        // 一条语句完成新增或累加
+        jdbcTemplate.update(ADD_SQL, userId, productId, quantity);
+    }
+    
+    @Override
+    @Transactional
+    public void update(Long userId, Long productId, int quantity) {
+        CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId);
+        if (cartItem != null) {
+            cartItem.setQuantity(quantity);
+            cartItemRepository.save(cartItem);
+        }
+    }
+    
+    @Override
+    @Transactional
+    public void remove(Long userId, Long productId) {
+        cartItemRepository.deleteByUserIdAndProductId(userId, productId);
+    }
+    
+    @Override
+    @Transactional
+    public void clear(Long userId) {
+        cartItemRepository.deleteByUserId(userId);
+    }
+    
+    @Override
+    @Transactional
+    public void apply(Long userId, List<CartOperationDTO> operations) {
+        // 连续的同类操作合并成一次 JDBC 批量执行，不同类操作之间保持原有顺序
+        int start = 0;
+        while (start < operations.size()) {
+            String op = operations.get(start).getOp();
+            int end = start;
+            List<Object[]> args = new ArrayList<>();
+            while (end < operations.size() && operations.get(end).getOp().equals(op)) {
+                CartOperationDTO operation = operations.get(end);
+                if (CartOperationDTO.REMOVE.equals(op)) {
+                    args.add(new Object[]{userId, operation.getProductId()});
+                } else if (CartOperationDTO.UPDATE.equals(op)) {
+                    args.add(new Object[]{operation.getQuantity(), userId, operation.getProductId()});
+                } else {
+                    args.add(new Object[]{userId, operation.getProductId(), operation.getQuantity()});
+                }
+                end++;
+            }
+            jdbcTemplate.batchUpdate(sqlFor(op), args);
+            start = end;
+        }
+    }
+    
+    @Override
+    @Transactional
+    public boolean deduct(Long userId, Map<Long, Integer> quantities) {
+        // 条件扣减：购物车行在提交前保持行锁，并发的重复结算会等待，之后数量不足而失败
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            if (jdbcTemplate.update("UPDATE cart_item SET quantity = quantity - ?"
+                    + " WHERE user_id = ? AND product_id = ? AND quantity >= ?",
+                    entry.getValue(), userId, entry.getKey(), entry.getValue()) == 0) {
+                return false;
+            }
+        }
+        jdbcTemplate.update("DELETE FROM cart_item WHERE user_id = ? AND quantity <= 0", userId);
+        return true;
+    }
+    
+    private static String sqlFor(String op) {
+        if (CartOperationDTO.REMOVE.equals(op)) {
+            return "DELETE FROM cart_item WHERE user_id = ? AND product_id = ?";
+        }
+        if (CartOperationDTO.UPDATE.equals(op)) {
+            return "UPDATE cart_item SET quantity = ? WHERE user_id = ? AND product_id = ?";
+        }
+        return ADD_SQL;
+    }
+}
@@ -0,0 +1,288 @@
+package com.wuyimall.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.wuyimall.dto.CartOperationDTO;
+import com.wuyimall.service.CartStore;
+import com.wuyimall.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 购物车存储（memory 模式，wuyi.cart.store=memory 时启用）
+ * 每个用户的购物车保存在容量有限的本地缓存中，长时间未访问或超出容量的用户被淘汰；
+ * 修改只更新内存并标记为脏，由定时任务把多个用户的修改合并成一个事务批量写回 cart_item；
+ * 缓存未命中时从数据库加载。被淘汰时还没写回的购物车和正在写回的快照都保存在 unflushed 中，
+ * 再次加载时优先使用其中的数据，保证不会读到数据库中的旧值。
+ * 注意：购物车只在单个实例内有效，多实例部署时请使用默认的 db 模式。
+ */
+@Service
+public class MemoryCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryCartStore.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${wuyi.cart.memory.max-users:100000}")
+    private long maxUsers;
+
+    @Value("${wuyi.cart.memory.idle-minutes:30}")
+    private long idleMinutes;
+
+    // 用户ID -> 购物车
+    private Cache<Long, UserCart> carts;
+
+    // 有未写回修改的用户ID
+    private final Set<Long> dirtyUserIds = ConcurrentHashMap.newKeySet();
+
+    // 还没确认写回成功的购物车快照（已被淘汰的脏购物车、正在写回的购物车）：用户ID -> 快照
+    private final Map<Long, Map<Long, Integer>> unflushed = new ConcurrentHashMap<>();
+
+    // 写回成功的次数，用于判断加载期间从数据库读到的数据是否已过期
+    private final AtomicLong flushSeq = new AtomicLong();
+
+    @PostConstruct
+    public void initCache() {
+        carts = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                // 淘汰监听在淘汰操作内同步执行，与同一用户的 compute 互斥
+                .evictionListener((Long userId, UserCart cart, RemovalCause cause) -> {
+                    if (userId != null && cart != null && cart.dirty) {
+                        unflushed.put(userId, new LinkedHashMap<>(cart.items));
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Map<Long, Integer> load(Long userId) {
+        return Collections.unmodifiableMap(withCart(userId, cart -> new LinkedHashMap<>(cart.items)));
+    }
+
+    @Override
+    public void add(Long userId, Long productId, int quantity) {
+        mutate(userId, items -> items.merge(productId, quantity, Integer::sum));
+    }
+
+    @Override
+    public void update(Long userId, Long productId, int quantity) {
+        mutate(userId, items -> items.computeIfPresent(productId, (id, q) -> quantity));
+    }
+
+    @Override
+    public void remove(Long userId, Long productId) {
+        mutate(userId, items -> items.remove(productId));
+    }
+
+    @Override
+    public void clear(Long userId) {
+        mutate(userId, Map::clear);
+    }
+
+    @Override
+    public void apply(Long userId, List<CartOperationDTO> operations) {
+        // 在同一次 compute 中执行所有操作
+        mutate(userId, items -> {
+            for (CartOperationDTO operation : operations) {
+                if (CartOperationDTO.REMOVE.equals(operation.getOp())) {
+                    items.remove(operation.getProductId());
+                } else if (CartOperationDTO.UPDATE.equals(operation.getOp())) {
+                    items.computeIfPresent(operation.getProductId(), (id, q) -> operation.getQuantity());
+                } else {
+                    items.merge(operation.getProductId(), operation.getQuantity(), Integer::sum);
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean deduct(Long userId, Map<Long, Integer> quantities) {
+        // 立即在内存中检查并扣减（与库存台账的预占相同），并发的重复结算会因数量不足而失败；
+        // 事务回滚时把扣减的数量加回去
+        boolean deducted = withCart(userId, cart -> {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                if (cart.items.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                cart.items.computeIfPresent(entry.getKey(), (id, q) -> q > entry.getValue() ? q - entry.getValue() : null);
+            }
+            cart.dirty = true;
+            return true;
+        });
+        if (!deducted) {
+            return false;
+        }
+        dirtyUserIds.add(userId);
+        TransactionHooks.afterRollback(() -> {
+            withCart(userId, cart -> {
+                quantities.forEach((productId, quantity) -> cart.items.merge(productId, quantity, Integer::sum));
+                cart.dirty = true;
+                return cart;
+            });
+            dirtyUserIds.add(userId);
+        });
+        return true;
+    }
+
+    /**
+     * 把有修改的购物车批量写回数据库
+     * 每个用户先删除原有行再插入当前内容，所有用户在同一个事务中完成；失败时快照留在 unflushed 中等待下次重试
+     */
+    @Scheduled(fixedDelayString = "${wuyi.cart.memory.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (dirtyUserIds.isEmpty() && unflushed.isEmpty()) {
+            return;
+        }
+        // 1. 取出待写回的快照并清除脏标记；快照写回成功前保留在 unflushed 中
+        Map<Long, Map<Long, Integer>> snapshots = new HashMap<>(unflushed);
+        for (Long userId : new ArrayList<>(dirtyUserIds)) {
+            dirtyUserIds.remove(userId);
+            carts.asMap().computeIfPresent(userId, (k, cart) -> {
+                Map<Long, Integer> snapshot = new LinkedHashMap<>(cart.items);
+                unflushed.put(k, snapshot);
+                snapshots.put(k, snapshot);
+                cart.dirty = false;
+                return cart;
+            });
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        // 2. 一个事务内批量写回
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(snapshots));
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} carts, will retry", snapshots.size(), e);
+            return;
+        }
+
+        // 3. 写回成功后移除快照（期间有更新的快照不会被误删）；
+        //    先推进写回序号，在此之前读取数据库的加载会发现序号变化并重新读取
+        flushSeq.incrementAndGet();
+        for (Map.Entry<Long, Map<Long, Integer>> entry : snapshots.entrySet()) {
+            unflushed.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void write(Map<Long, Map<Long, Integer>> snapshots) {
+        List<Object[]> deleteArgs = new ArrayList<>(snapshots.size());
+        List<Object[]> insertArgs = new ArrayList<>();
+        for (Map.Entry<Long, Map<Long, Integer>> entry : snapshots.entrySet()) {
+            deleteArgs.add(new Object[]{entry.getKey()});
+            for (Map.Entry<Long, Integer> item : entry.getValue().entrySet()) {
+                insertArgs.add(new Object[]{entry.getKey(), item.getValue(), item.getKey()});
+            }
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM cart_item WHERE user_id = ?", deleteArgs);
+        // 商品可能已被删除，只插入仍然存在的商品，避免外键约束导致整批失败
+        jdbcTemplate.batchUpdate("INSERT INTO cart_item (user_id, product_id, quantity)"
+                + " SELECT ?, id, ? FROM product WHERE id = ?", insertArgs);
+    }
+
+    private void mutate(Long userId, Consumer<Map<Long, Integer>> change) {
+        // 内存购物车不参与数据库事务：在事务中修改时，等事务提交后再生效
+        TransactionHooks.afterCommit(() -> {
+            withCart(userId, cart -> {
+                change.accept(cart.items);
+                cart.dirty = true;
+                return cart;
+            });
+            dirtyUserIds.add(userId);
+        });
+    }
+
+    /**
+     * 在用户购物车上执行操作：在缓存的 computeIfPresent 中执行，与同一用户的其他操作、淘汰互斥
+     * 购物车未缓存时先加载，加载后到执行前被淘汰时重新加载
+     */
+    private <T> T withCart(Long userId, Function<UserCart, T> action) {
+        while (true) {
+            loadCart(userId);
+            List<T> result = new ArrayList<>(1);
+            if (carts.asMap().computeIfPresent(userId, (k, cart) -> {
+                result.add(action.apply(cart));
+                return cart;
+            }) != null) {
+                return result.get(0);
+            }
+        }
+    }
+
+    /**
+     * 确保用户购物车已在缓存中：优先使用还没确认写回的快照，否则从数据库读取
+     * 数据库查询在 compute 之外执行，不在查询期间占用缓存的锁；
+     * 查询期间有写回完成时（写回序号变化），读到的可能是旧数据，丢弃后重新读取
+     */
+    private void loadCart(Long userId) {
+        while (carts.getIfPresent(userId) == null) {
+            long seq = flushSeq.get();
+            Map<Long, Integer> stored = unflushed.containsKey(userId) ? null : queryCart(userId);
+            carts.asMap().compute(userId, (k, c) -> {
+                if (c != null) {
+                    return c;
+                }
+                Map<Long, Integer> snapshot = unflushed.remove(k);
+                if (snapshot != null) {
+                    // 取走快照的同时接管写回责任
+                    UserCart cart = new UserCart();
+                    cart.items.putAll(snapshot);
+                    cart.dirty = true;
+                    dirtyUserIds.add(k);
+                    return cart;
+                }
+                if (stored == null || flushSeq.get() != seq) {
+                    return null;
+                }
+                UserCart cart = new UserCart();
+                cart.items.putAll(stored);
+                return cart;
+            });
+        }
+    }
+
+    private Map<Long, Integer> queryCart(Long userId) {
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_item WHERE user_id = ? ORDER BY id", rs -> {
+            items.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+        }, userId);
+        return items;
+    }
+
+    /**
+     * 内存中的用户购物车，只在缓存的 compute / computeIfPresent 中读写
+     */
+    private static class UserCart {
+        private final Map<Long, Integer> items = new LinkedHashMap<>();
+        private boolean dirty;
+    }
+}
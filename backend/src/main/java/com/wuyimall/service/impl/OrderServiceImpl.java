@@ -1,24 +1,45 @@
 package com.wuyimall.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wuyimall.dto.CheckoutRequest;
 import com.wuyimall.dto.CreateOrderRequest;
 import com.wuyimall.dto.OrderDTO;
 import com.wuyimall.dto.OrderItemDTO;
+import com.wuyimall.dto.OrderPageDTO;
 import com.wuyimall.entity.Order;
 import com.wuyimall.entity.OrderItem;
+import com.wuyimall.entity.OrderStatus;
 import com.wuyimall.entity.Product;
+import com.wuyimall.event.OrderStatusChangedEvent;
 import com.wuyimall.repository.OrderRepository;
 import com.wuyimall.repository.OrderItemRepository;
 import com.wuyimall.repository.ProductRepository;
 import com.wuyimall.repository.UserRepository;
+import com.wuyimall.service.CartService;
+import com.wuyimall.service.OrderEventDispatcher;
 import com.wuyimall.service.OrderService;
+import com.wuyimall.service.StockService;
+import com.wuyimall.util.OrderNoGenerator;
+import com.wuyimall.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单服务实现类
@@ -27,6 +48,12 @@ import java.util.UUID;
 @Service
 public class OrderServiceImpl implements OrderService {
     
+    // 批量查询时单条 IN 列表的最大长度
+    private static final int IN_CHUNK_SIZE = 500;
+    
+    // 分页游标中表示创建时间为空
+    private static final String NULL_CURSOR_TIME = "null";
+    
     @Autowired
     private OrderRepository orderRepository;
     
@@ -39,15 +66,33 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private UserRepository userRepository;
     
-    /**
-     * 生成订单号
-     * @return 订单号
-     */
-    private String generateOrderNo() {
-        // 生成订单号：时间戳 + UUID前8位
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-        return timestamp + uuid;
+    @Autowired
+    private StockService stockService;
+    
+    @Autowired
+    private OrderEventDispatcher orderEventDispatcher;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private OrderNoGenerator orderNoGenerator;
+    
+    @Value("${wuyi.cache.order-no.max-size:100000}")
+    private long orderNoCacheSize;
+    
+    @Value("${wuyi.cache.order-no.ttl-minutes:30}")
+    private long orderNoCacheTtlMinutes;
+    
+    // 订单号 -> 订单ID，订单号创建后不再变化，只在删除订单时失效
+    private Cache<String, Long> orderIdByNo;
+    
+    @PostConstruct
+    public void initCache() {
+        orderIdByNo = Caffeine.newBuilder()
+                .maximumSize(orderNoCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(orderNoCacheTtlMinutes))
+                .build();
     }
     
     /**
@@ -56,6 +101,74 @@ public class OrderServiceImpl implements OrderService {
      * @return 订单DTO
      */
     private OrderDTO convertToOrderDTO(Order order) {
+        return convertToOrderDTOs(Collections.singletonList(order)).get(0);
+    }
+    
+    /**
+     * 批量将Order转为OrderDTO
+     * 订单的商品项按 IN 查询取出，商品图片再用 IN 查询取出，之后在内存中组装；
+     * IN 列表按 IN_CHUNK_SIZE 分段，单条 SQL 的长度不会随订单数量无限增长
+     * @param orders 订单实体列表
+     * @return 订单DTO列表（顺序与入参一致）
+     */
+    private List<OrderDTO> convertToOrderDTOs(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // 1. 分段查询出所有订单的商品项，并按订单ID分组
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        Map<Long, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        Set<Long> productIds = new HashSet<>();
+        for (List<Long> chunk : chunks(orderIds)) {
+            for (OrderItem orderItem : orderItemRepository.findByOrderIdInOrderByIdAsc(chunk)) {
+                itemsByOrderId.computeIfAbsent(orderItem.getOrder().getId(), k -> new ArrayList<>()).add(orderItem);
+                productIds.add(orderItem.getProductId());
+            }
+        }
+        
+        // 2. 分段查询出所有涉及商品的图片
+        Map<Long, String> imageByProductId = new HashMap<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(productIds))) {
+            for (Object[] row : productRepository.findMainImagesByIdIn(chunk)) {
+                imageByProductId.put((Long) row[0], (String) row[1]);
+            }
+        }
+        
+        // 3. 在内存中组装DTO
+        List<OrderDTO> orderDTOs = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderDTOs.add(buildOrderDTO(order,
+                    itemsByOrderId.getOrDefault(order.getId(), Collections.emptyList()), imageByProductId));
+        }
+        
+        return orderDTOs;
+    }
+    
+    /**
+     * 把ID列表切分为不超过 IN_CHUNK_SIZE 的段
+     * @param ids ID列表
+     * @return 分段后的列表
+     */
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+    
+    /**
+     * 用已经取出的订单商品项和商品图片组装订单DTO
+     * @param order 订单实体
+     * @param orderItems 订单商品项
+     * @param imageByProductId 商品ID -> 商品图片
+     * @return 订单DTO
+     */
+    private OrderDTO buildOrderDTO(Order order, List<OrderItem> orderItems, Map<Long, String> imageByProductId) {
         OrderDTO orderDTO = new OrderDTO();
         orderDTO.setId(order.getId());
         orderDTO.setOrderNo(order.getOrderNo());
@@ -65,9 +178,7 @@ public class OrderServiceImpl implements OrderService {
         orderDTO.setStatus(order.getStatus());
         orderDTO.setCreateTime(order.getCreateTime());
         
-        // 查询订单商品项
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-        List<OrderItemDTO> orderItemDTOs = new ArrayList<>();
+        List<OrderItemDTO> orderItemDTOs = new ArrayList<>(orderItems.size());
         
         // 初始化收货人姓名
         String receiveName = "未知用户";
@@ -85,11 +196,8 @@ public class OrderServiceImpl implements OrderService {
             orderItemDTO.setReceivePhone(orderItem.getReceivePhone());
             orderItemDTO.setReceiveAddress(orderItem.getReceiveAddress());
             
-            // 查询商品图片
-            Product product = productRepository.findById(orderItem.getProductId()).orElse(null);
-            if (product != null) {
-                orderItemDTO.setProductImage(product.getMainImage());
-            }
+            // 设置商品图片
+            orderItemDTO.setProductImage(imageByProductId.get(orderItem.getProductId()));
             
             orderItemDTOs.add(orderItemDTO);
             
@@ -103,73 +211,168 @@ public class OrderServiceImpl implements OrderService {
         orderDTO.setUsername(receiveName);
         
         orderDTO.setOrderItems(orderItemDTOs);
-        
         return orderDTO;
     }
     
     @Override
     @Transactional
     public OrderDTO createOrder(CreateOrderRequest request, Long userId) {
-        // 1. 生成订单号
-        String orderNo = generateOrderNo();
-        
-        // 2. 创建订单实体
-        Order order = new Order();
-        order.setOrderNo(orderNo);
-        order.setUserId(userId);
-        order.setTotalAmount(request.getTotalAmount());
-        order.setStatus(0); // 初始状态：未支付
+        if (request.getOrderItems() == null || request.getOrderItems().isEmpty()) {
+            throw new RuntimeException("订单商品不能为空");
+        }
+        // 汇总每个商品的购买数量（同一商品多行时合并）；只使用商品ID和数量，价格由服务端计算
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemDTO itemDTO : request.getOrderItems()) {
+            if (itemDTO.getQuantity() == null || itemDTO.getQuantity() <= 0) {
+                throw new RuntimeException("商品数量无效：" + itemDTO.getProductName());
+            }
+            quantities.merge(itemDTO.getProductId(), itemDTO.getQuantity(), Integer::sum);
+        }
+        return placeOrder(userId, quantities, request.getName(), request.getPhone(), request.getAddress());
+    }
+    
+    @Override
+    @Transactional
+    public OrderDTO checkout(CheckoutRequest request, Long userId) {
+        // 1. 读取购物车（一次查询），按需只结算选中的商品
+        Map<Long, Integer> cart = cartService.getQuantities(userId);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : cart.entrySet()) {
+            if (request.getProductIds() == null || request.getProductIds().isEmpty()
+                    || request.getProductIds().contains(entry.getKey())) {
+                quantities.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("购物车中没有要结算的商品");
+        }
         
-        // 3. 保存订单
-        order = orderRepository.save(order);
+        // 2. 下单
+        OrderDTO order = placeOrder(userId, quantities, request.getName(), request.getPhone(), request.getAddress());
         
-        // 4. 保存订单商品项
-        for (OrderItemDTO itemDTO : request.getOrderItems()) {
-            // 验证商品库存
-            Product product = productRepository.findById(itemDTO.getProductId()).orElse(null);
+        // 3. 从购物车中扣减已结算的数量（与下单在同一事务中）；
+        //    只扣减本次结算的数量，期间新加入的数量保留；并发的重复结算在这里失败并整单回滚
+        if (!cartService.deductItems(userId, quantities)) {
+            throw new RuntimeException("购物车已变化，请刷新后重试");
+        }
+        return order;
+    }
+    
+    /**
+     * 下单流程：一次查询取出所有商品，服务端计算价格，按商品ID顺序条件扣减库存，
+     * 保存订单后批量插入所有订单商品项，最后在内存中组装返回的DTO
+     * @param userId 用户ID
+     * @param quantities 商品ID -> 购买数量
+     * @param receiveName 收货人姓名
+     * @param receivePhone 收货人电话
+     * @param receiveAddress 收货地址
+     * @return 订单DTO
+     */
+    private OrderDTO placeOrder(Long userId, Map<Long, Integer> quantities,
+                                String receiveName, String receivePhone, String receiveAddress) {
+        // 1. 一次查询取出所有商品，校验是否存在、是否上架
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        for (Long productId : quantities.keySet()) {
+            Product product = products.get(productId);
             if (product == null) {
-                throw new RuntimeException("商品不存在：" + itemDTO.getProductName());
+                throw new RuntimeException("商品不存在：" + productId);
             }
-            if (product.getStock() < itemDTO.getQuantity()) {
-                throw new RuntimeException("商品库存不足：" + product.getName());
+            if (product.getStatus() == null || product.getStatus() != 1) {
+                throw new RuntimeException("商品已下架：" + product.getName());
             }
-            
-            // 创建订单商品项
+        }
+        
+        // 2. 条件扣减库存，任一商品库存不足则整单回滚
+        List<Long> failedProductIds = stockService.reserve(quantities);
+        if (!failedProductIds.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            for (Long productId : failedProductIds) {
+                names.add(products.get(productId).getName());
+            }
+            throw new RuntimeException("商品库存不足：" + String.join("、", names));
+        }
+        
+        // 3. 按当前商品价格计算小计和订单总金额
+        List<OrderItem> orderItems = new ArrayList<>(quantities.size());
+        Map<Long, String> imageByProductId = new HashMap<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
             OrderItem orderItem = new OrderItem();
+            orderItem.setProductId(product.getId());
+            orderItem.setProductName(product.getName());
+            orderItem.setProductPrice(product.getPrice());
+            orderItem.setQuantity(entry.getValue());
+            orderItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(entry.getValue())));
+            orderItem.setReceiveName(receiveName);
+            orderItem.setReceivePhone(receivePhone);
+            orderItem.setReceiveAddress(receiveAddress);
+            orderItems.add(orderItem);
+            imageByProductId.put(product.getId(), product.getMainImage());
+            totalAmount = totalAmount.add(orderItem.getTotalPrice());
+        }
+        
+        // 4. 生成订单号并保存订单
+        Order order = new Order();
+        order.setOrderNo(orderNoGenerator.nextOrderNo());
+        order.setUserId(userId);
+        order.setTotalAmount(totalAmount);
+        order.setStatus(OrderStatus.PENDING_PAYMENT.getCode()); // 初始状态：未支付
+        order = orderRepository.save(order);
+        orderEventDispatcher.append(OrderStatusChangedEvent.created(order));
+        // 新订单随后通常会按订单号查询（支付回调、订单跟踪），提交后预先放入映射缓存
+        String orderNo = order.getOrderNo();
+        Long orderId = order.getId();
+        TransactionHooks.afterCommit(() -> orderIdByNo.put(orderNo, orderId));
+        
+        // 5. 保存所有订单商品项（序列分配ID，提交时由 Hibernate 合并成 JDBC 批量插入）
+        for (OrderItem orderItem : orderItems) {
             orderItem.setOrder(order);
-            orderItem.setProductId(itemDTO.getProductId());
-            orderItem.setProductName(itemDTO.getProductName());
-            orderItem.setProductPrice(itemDTO.getProductPrice());
-            orderItem.setQuantity(itemDTO.getQuantity());
-            orderItem.setTotalPrice(itemDTO.getTotalPrice());
-            
-            // 保存收货人信息
-            orderItem.setReceiveName(request.getName());
-            orderItem.setReceivePhone(request.getPhone());
-            orderItem.setReceiveAddress(request.getAddress());
-            
-            // 保存订单商品项
-            orderItemRepository.save(orderItem);
-            
-            // 扣减商品库存
-            product.setStock(product.getStock() - itemDTO.getQuantity());
-            productRepository.save(product);
         }
+        orderItemRepository.saveAll(orderItems);
         
-        // 5. 转换为DTO并返回
-        return convertToOrderDTO(order);
+        // 6. 直接用内存中的数据组装DTO，不再回查数据库
+        return buildOrderDTO(order, orderItems, imageByProductId);
     }
     
     @Override
     public List<OrderDTO> getOrdersByUserId(Long userId) {
         List<Order> orders = orderRepository.findByUserId(userId);
-        List<OrderDTO> orderDTOs = new ArrayList<>();
-        
-        for (Order order : orders) {
-            orderDTOs.add(convertToOrderDTO(order));
+        return convertToOrderDTOs(orders);
+    }
+    
+    @Override
+    public OrderPageDTO getOrderPage(Integer status, Long userId, LocalDateTime startTime, LocalDateTime endTime,
+                                     String cursor, int size) {
+        // 解析游标：创建时间_订单ID，创建时间为空的记录用 null_订单ID
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                String time = cursor.substring(0, separator);
+                cursorTime = NULL_CURSOR_TIME.equals(time) ? null : LocalDateTime.parse(time);
+                cursorId = Long.parseLong(cursor.substring(separator + 1));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
         }
         
-        return orderDTOs;
+        List<Order> orders = orderRepository.findPageBefore(status, userId, startTime, endTime,
+                cursorTime, cursorId, PageRequest.of(0, size));
+        
+        OrderPageDTO page = new OrderPageDTO();
+        page.setOrders(convertToOrderDTOs(orders));
+        // 取满一页才可能还有下一页
+        if (orders.size() == size) {
+            Order last = orders.get(orders.size() - 1);
+            String time = last.getCreateTime() != null ? last.getCreateTime().toString() : NULL_CURSOR_TIME;
+            page.setNextCursor(time + "_" + last.getId());
+        }
+        return page;
     }
     
     @Override
@@ -183,7 +386,12 @@ public class OrderServiceImpl implements OrderService {
     
     @Override
     public OrderDTO getOrderByOrderNo(String orderNo, Long userId) {
-        Order order = orderRepository.findByOrderNo(orderNo);
+        // 先通过缓存把订单号解析成ID（未命中时走唯一索引只查主键），再按主键加载
+        Long orderId = orderIdByNo.get(orderNo, orderRepository::findIdByOrderNo);
+        if (orderId == null) {
+            return null;
+        }
+        Order order = orderRepository.findById(orderId).orElse(null);
         if (order == null || !order.getUserId().equals(userId)) {
             return null;
         }
@@ -193,73 +401,81 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public boolean cancelOrder(Long orderId, Long userId) {
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null || !order.getUserId().equals(userId)) {
-            return false;
-        }
-        
         // 只有未支付的订单可以取消
-        if (order.getStatus() != 0) {
+        if (!transition(orderId, userId, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED)) {
             return false;
         }
         
-        // 更新订单状态为已取消
-        order.setStatus(4); // 4：已取消
-        orderRepository.save(order);
-        
-        // 恢复商品库存
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        for (OrderItem orderItem : orderItems) {
-            Product product = productRepository.findById(orderItem.getProductId()).orElse(null);
-            if (product != null) {
-                product.setStock(product.getStock() + orderItem.getQuantity());
-                productRepository.save(product);
-            }
-        }
-        
+        // 恢复商品库存：只有状态转换成功的请求会执行，并发或重复的取消不会多还库存
+        releaseStock(orderId);
         return true;
     }
     
     @Override
     @Transactional
     public boolean payOrder(Long orderId, Long userId) {
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null || !order.getUserId().equals(userId)) {
-            return false;
-        }
-        
         // 只有未支付的订单可以支付
-        if (order.getStatus() != 0) {
-            return false;
-        }
-        
-        // 更新订单状态为已支付
-        order.setStatus(1); // 1：已支付
-        orderRepository.save(order);
-        
-        return true;
+        return transition(orderId, userId, OrderStatus.PENDING_PAYMENT, OrderStatus.PAID);
     }
     
     @Override
     @Transactional
     public boolean confirmReceipt(Long orderId, Long userId) {
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null || !order.getUserId().equals(userId)) {
-            return false;
+        // 只有已发货的订单可以确认收货
+        return transition(orderId, userId, OrderStatus.SHIPPED, OrderStatus.COMPLETED);
+    }
+    
+    @Override
+    @Transactional
+    public void changeStatus(Long orderId, Integer status) {
+        OrderStatus target = OrderStatus.of(status);
+        // 只查状态列，不加载订单实体
+        Integer currentStatus = orderRepository.findStatusById(orderId);
+        if (currentStatus == null) {
+            throw new RuntimeException("订单不存在");
         }
+        OrderStatus current = OrderStatus.of(currentStatus);
         
-        // 只有已发货的订单可以确认收货
-        if (order.getStatus() != 2) {
+        // 以读取到的状态为条件更新，期间状态被其他请求修改时更新失败
+        if (!transition(orderId, null, current, target)) {
+            throw new RuntimeException("订单状态已变化，请刷新后重试");
+        }
+        if (target == OrderStatus.CANCELLED) {
+            releaseStock(orderId);
+        }
+    }
+    
+    /**
+     * 执行一次订单状态转换并发布状态变化事件
+     * 转换由一条条件 UPDATE 完成，并发请求中只有订单仍处于 from 状态时执行的那一个会成功；
+     * 事件直接由参数构造，不再读回订单（金额等由事件处理方从批量加载的订单中获取）
+     * @param orderId 订单ID
+     * @param userId 用户ID，传 null 表示不校验订单归属
+     * @param from 期望的当前状态
+     * @param to 新状态
+     * @return 是否转换成功，订单不存在、不属于该用户或状态不符时返回 false
+     */
+    private boolean transition(Long orderId, Long userId, OrderStatus from, OrderStatus to) {
+        if (!from.canTransitTo(to)) {
+            throw new RuntimeException("订单状态不能从" + from.getText() + "变为" + to.getText());
+        }
+        if (orderRepository.transition(orderId, userId, from.getCode(), to.getCode()) == 0) {
             return false;
         }
-        
-        // 更新订单状态为已完成
-        order.setStatus(3); // 3：已完成
-        orderRepository.save(order);
-        
+        orderEventDispatcher.append(new OrderStatusChangedEvent(orderId, userId, null,
+                from.getCode(), to.getCode()));
         return true;
     }
     
+    /**
+     * 恢复订单占用的商品库存
+     * 不加载订单商品项实体，按商品汇总后按商品ID顺序批量归还
+     * @param orderId 订单ID
+     */
+    private void releaseStock(Long orderId) {
+        stockService.releaseOrders(Collections.singletonList(orderId));
+    }
+    
     @Override
     @Transactional
     public boolean deleteOrder(Long orderId, Long userId) {
@@ -269,7 +485,7 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // 只有已取消或已完成的订单可以删除
-        if (order.getStatus() != 3 && order.getStatus() != 4) {
+        if (!OrderStatus.of(order.getStatus()).isFinal()) {
             return false;
         }
         
@@ -278,6 +494,9 @@ public class OrderServiceImpl implements OrderService {
         
         // 删除订单
         orderRepository.delete(order);
+        orderEventDispatcher.append(OrderStatusChangedEvent.deleted(order));
+        String orderNo = order.getOrderNo();
+        TransactionHooks.afterCommit(() -> orderIdByNo.invalidate(orderNo));
         
         return true;
     }
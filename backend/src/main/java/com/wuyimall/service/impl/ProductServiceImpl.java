@@ -1,28 +1,292 @@
 package com.wuyimall.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.wuyimall.dto.ProductSearchResult;
 import com.wuyimall.entity.Product;
 import com.wuyimall.repository.ProductRepository;
+import com.wuyimall.service.DashboardMetrics;
+import com.wuyimall.service.ProductSearchIndex;
 import com.wuyimall.service.ProductService;
+import com.wuyimall.service.StockService;
+import com.wuyimall.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * 商品服务实现类
+ * 商品详情和分类商品列表走本地缓存（按容量和过期时间淘汰），
+ * 商品在后台新增、修改、删除、上下架时精确失效相关缓存项，并增量更新搜索索引
+ */
 @Service
 public class ProductServiceImpl implements ProductService {
     
+    private static final Logger log = LoggerFactory.getLogger(ProductServiceImpl.class);
+    
+    // 分类列表缓存中代表“全部商品”的键
+    private static final Long ALL_CATEGORIES = 0L;
+    
+    // 上架状态
+    private static final Integer ON_SHELF = 1;
+    
+    // 分页浏览允许的排序字段
+    private static final Set<String> SORTABLE_FIELDS = Set.of("price", "stock", "id");
+    
+    // 分页浏览的最大页大小
+    private static final int MAX_PAGE_SIZE = 100;
+    
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private StockService stockService;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private DashboardMetrics dashboardMetrics;
+    
+    @Value("${wuyi.cache.product.max-size:10000}")
+    private long maxSize;
+    
+    @Value("${wuyi.cache.product.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    @Value("${wuyi.cache.product.list-limit:500}")
+    private int listLimit;
+    
+    // 商品ID -> 商品
+    private Cache<Long, Product> productCache;
+    
+    // 分类ID -> 该分类下的商品列表
+    private Cache<Long, List<Product>> categoryCache;
+    
+    @PostConstruct
+    public void initCaches() {
+        productCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        // 列表缓存按分类数量计，容量不需要很大
+        categoryCache = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * 启动时从数据库构建搜索索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.rebuild(productRepository.findAll());
+        log.info("Product search index built with {} on-shelf products", searchIndex.size());
+    }
+    
     @Override
     public List<Product> listByCategory(Long categoryId) {
         if (categoryId == null) {
-            return productRepository.findAll();
+            // 不指定分类时只取按ID排序的前 listLimit 个上架商品，缓存大小不随商品总数增长
+            return categoryCache.get(ALL_CATEGORIES, k -> Collections.unmodifiableList(
+                    productRepository.findListByStatus(ON_SHELF, PageRequest.of(0, listLimit, Sort.by("id")))));
         }
-        return productRepository.findByCategoryId(categoryId);
+        return categoryCache.get(categoryId,
+                k -> Collections.unmodifiableList(productRepository.findByCategoryId(categoryId)));
     }
     
     @Override
     public Product getById(Long id) {
-        return productRepository.findById(id).orElse(null);
+        // 不存在的商品不缓存（loader 返回 null 时 Caffeine 不保存）
+        return productCache.get(id, k -> productRepository.findById(k).orElse(null));
+    }
+    
+    @Override
+    public Map<Long, Product> getByIds(Collection<Long> ids) {
+        return productCache.getAll(ids, missing -> {
+            Map<Long, Product> byId = new HashMap<>();
+            for (Product product : productRepository.findAllById(new ArrayList<Long>(missing))) {
+                byId.put(product.getId(), product);
+            }
+            return byId;
+        });
+    }
+    
+    @Override
+    public Page<Product> browse(Long categoryId, int page, int size, String sort, String direction) {
+        if (!SORTABLE_FIELDS.contains(sort)) {
+            throw new RuntimeException("不支持的排序字段：" + sort);
+        }
+        Sort.Direction dir = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // 追加 id 作为次级排序，保证翻页结果稳定
+        Sort order = "id".equals(sort) ? Sort.by(dir, "id") : Sort.by(dir, sort).and(Sort.by(dir, "id"));
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), order);
+        
+        if (categoryId == null) {
+            return productRepository.findByStatus(ON_SHELF, pageable);
+        }
+        return productRepository.findByCategoryIdAndStatus(categoryId, ON_SHELF, pageable);
+    }
+    
+    @Override
+    public ProductSearchResult search(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                      int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductSearchIndex.Hits hits = searchIndex.search(keyword, categoryId, minPrice, maxPrice,
+                Math.max(page, 0) * pageSize, pageSize);
+        
+        // 命中的商品从缓存中批量取，未命中的一次 IN 查询加载，再按相关度顺序排列
+        Map<Long, Product> loaded = getByIds(hits.getProductIds());
+        List<Product> products = new ArrayList<>(hits.getProductIds().size());
+        for (Long productId : hits.getProductIds()) {
+            Product product = loaded.get(productId);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        
+        ProductSearchResult result = new ProductSearchResult();
+        result.setProducts(products);
+        result.setTotal(hits.getTotal());
+        result.setCategoryFacets(hits.getCategoryFacets());
+        result.setPriceFacets(hits.getPriceFacets());
+        return result;
+    }
+    
+    @Override
+    @Transactional
+    public Product save(Product product) {
+        Long oldCategoryId = null;
+        Integer oldStatus = null;
+        if (product.getId() != null) {
+            Product old = productRepository.findById(product.getId()).orElse(null);
+            if (old != null) {
+                oldCategoryId = old.getCategoryId();
+                oldStatus = old.getStatus();
+            }
+        }
+        Product saved = productRepository.save(product);
+        stockService.syncStock(saved.getId(), saved.getStock());
+        evict(saved.getId(), oldCategoryId, saved.getCategoryId());
+        Integer fromStatus = oldStatus;
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.index(saved);
+            dashboardMetrics.onProductStatusChanged(fromStatus, saved.getStatus());
+        });
+        return saved;
+    }
+    
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        Product old = productRepository.findById(id).orElse(null);
+        productRepository.deleteById(id);
+        stockService.removeProduct(id);
+        evict(id, old != null ? old.getCategoryId() : null, null);
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.remove(id);
+            if (old != null) {
+                dashboardMetrics.onProductStatusChanged(old.getStatus(), null);
+            }
+        });
+    }
+    
+    @Override
+    @Transactional
+    public void changeStatus(Long id, Integer status) {
+        Product p = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("商品不存在"));
+        Integer fromStatus = p.getStatus();
+        p.setStatus(status);
+        productRepository.save(p);
+        evict(id, p.getCategoryId(), null);
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.index(p);
+            dashboardMetrics.onProductStatusChanged(fromStatus, status);
+        });
+    }
+    
+    @Override
+    public void evictStock(Collection<Long> productIds) {
+        // 列表缓存中的商品同样带库存：失效所属分类和全部商品列表；
+        // 分类优先从商品缓存中取，不在缓存中的商品再用一次查询取分类
+        Set<Long> categoryIds = new HashSet<>();
+        Map<Long, Product> cached = productCache.getAllPresent(productIds);
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Product product = cached.get(productId);
+            if (product == null) {
+                missing.add(productId);
+            } else if (product.getCategoryId() != null) {
+                categoryIds.add(product.getCategoryId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            categoryIds.addAll(productRepository.findCategoryIdsByIdIn(missing));
+        }
+        productCache.invalidateAll(productIds);
+        categoryCache.invalidateAll(categoryIds);
+        categoryCache.invalidate(ALL_CATEGORIES);
+    }
+    
+    @Override
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("product", toMap(productCache.stats(), productCache.estimatedSize()));
+        stats.put("category", toMap(categoryCache.stats(), categoryCache.estimatedSize()));
+        return stats;
+    }
+    
+    /**
+     * 使商品详情、所属分类（修改前后）和全部商品列表的缓存失效
+     * 立即失效一次，事务提交后再失效一次，防止提交前被并发读请求用旧数据回填
+     */
+    private void evict(Long productId, Long oldCategoryId, Long newCategoryId) {
+        Runnable action = () -> {
+            productCache.invalidate(productId);
+            categoryCache.invalidate(ALL_CATEGORIES);
+            if (oldCategoryId != null) {
+                categoryCache.invalidate(oldCategoryId);
+            }
+            if (newCategoryId != null) {
+                categoryCache.invalidate(newCategoryId);
+            }
+        };
+        action.run();
+        TransactionHooks.afterCommit(action);
+    }
+    
+    private Map<String, Object> toMap(CacheStats cacheStats, long size) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", size);
+        map.put("hitCount", cacheStats.hitCount());
+        map.put("missCount", cacheStats.missCount());
+        map.put("hitRate", cacheStats.hitRate());
+        map.put("evictionCount", cacheStats.evictionCount());
+        return map;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package com.wuyimall.service.impl;
+
+import com.wuyimall.repository.ProductRepository;
+import com.wuyimall.service.InventoryLedger;
+import com.wuyimall.service.StockService;
+import com.wuyimall.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 库存服务实现类
+ * 默认（db 模式）每个商品一条 UPDATE product SET stock = stock - ? WHERE id = ? AND stock >= ?，
+ * 检查与扣减在数据库内原子完成，不会超卖，也不需要先查询再保存；
+ * ledger 模式下先在内存台账中扣减，同一事务写入库存流水，再由台账异步合并写回 product.stock
+ */
+@Service
+public class StockServiceImpl implements StockService {
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    @Transactional
+    public List<Long> reserve(Map<Long, Integer> quantities) {
+        if (inventoryLedger.isEnabled()) {
+            return reserveInLedger(quantities);
+        }
+        List<Long> failedProductIds = new ArrayList<>();
+        // TreeMap 保证所有事务按相同顺序加行锁
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            if (productRepository.decreaseStock(entry.getKey(), entry.getValue()) == 0) {
+                failedProductIds.add(entry.getKey());
+            }
+        }
+        return failedProductIds;
+    }
+    
+    @Override
+    @Transactional
+    public void release(Map<Long, Integer> quantities) {
+        if (inventoryLedger.isEnabled()) {
+            // 流水随事务落库；事务提交后才把库存还回台账，避免回滚时多还
+            Map<Long, Integer> sorted = new TreeMap<>(quantities);
+            inventoryLedger.journal(sorted);
+            long mark = inventoryLedger.mark();
+            TransactionHooks.afterCommit(() -> sorted.forEach((productId, quantity) ->
+                    inventoryLedger.release(productId, quantity, mark)));
+            return;
+        }
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            productRepository.increaseStock(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    @Override
+    @Transactional
+    public void releaseOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        // 一次查询按商品汇总，每个商品只归还一次
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+        Map<Long, Integer> quantities = new TreeMap<>();
+        jdbcTemplate.query("SELECT product_id, SUM(quantity) AS quantity FROM order_item"
+                + " WHERE order_id IN (" + placeholders + ") GROUP BY product_id", rs -> {
+            quantities.put(rs.getLong("product_id"), rs.getInt("quantity"));
+        }, orderIds.toArray());
+        if (inventoryLedger.isEnabled()) {
+            release(quantities);
+            return;
+        }
+        // 按商品ID顺序批量归还，与 reserve 的加锁顺序一致，避免与并发下单死锁
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE product SET stock = stock + ? WHERE id = ?", args);
+    }
+    
+    @Override
+    @Transactional
+    public void syncStock(Long productId, Integer stock) {
+        if (inventoryLedger.isEnabled()) {
+            // 改写值为准：丢弃未写回的流水，提交后再更新台账
+            inventoryLedger.discardJournal(productId);
+            TransactionHooks.afterCommit(() -> inventoryLedger.reset(productId, stock));
+        }
+    }
+    
+    @Override
+    @Transactional
+    public void removeProduct(Long productId) {
+        if (inventoryLedger.isEnabled()) {
+            inventoryLedger.discardJournal(productId);
+            TransactionHooks.afterCommit(() -> inventoryLedger.remove(productId));
+        }
+    }
+    
+    /**
+     * 在内存台账中扣减库存，并在同一事务中写入扣减流水
+     * 流水随订单提交落库，崩溃重启后可据此重建台账；
+     * 扣减成功的部分在事务回滚时自动归还（流水同时回滚），和 db 模式下回滚的效果一致
+     */
+    private List<Long> reserveInLedger(Map<Long, Integer> quantities) {
+        List<Long> failedProductIds = new ArrayList<>();
+        Map<Long, Integer> reserved = new TreeMap<>();
+        long mark = inventoryLedger.mark();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            if (inventoryLedger.tryReserve(entry.getKey(), entry.getValue())) {
+                reserved.put(entry.getKey(), entry.getValue());
+            } else {
+                failedProductIds.add(entry.getKey());
+            }
+        }
+        TransactionHooks.afterRollback(() -> reserved.forEach((productId, quantity) ->
+                inventoryLedger.release(productId, quantity, mark)));
+        Map<Long, Integer> deltas = new TreeMap<>();
+        reserved.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+        inventoryLedger.journal(deltas);
+        return failedProductIds;
+    }
+}
@@ -0,0 +1,54 @@
+package com.wuyimall.util;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 解析客户端IP
+ * 只有直接连接方（remoteAddr）是受信任的代理时才读取 X-Forwarded-For：从右往左跳过受信任的代理，
+ * 第一个不受信任的地址即为客户端IP；全部是受信任代理时取最左边的地址。
+ * 直接连接方不受信任时忽略该请求头，客户端无法通过伪造请求头冒充其他IP
+ */
+public class ClientIpResolver {
+
+    // 受信任代理的IP（精确匹配）
+    private final Set<String> trustedProxies;
+
+    /**
+     * @param trustedProxies 受信任代理的IP列表
+     */
+    public ClientIpResolver(Collection<String> trustedProxies) {
+        this.trustedProxies = new HashSet<>();
+        for (String proxy : trustedProxies) {
+            if (!proxy.isBlank()) {
+                this.trustedProxies.add(proxy.trim());
+            }
+        }
+    }
+
+    /**
+     * 解析客户端IP
+     * @param remoteAddr 直接连接方的IP
+     * @param forwardedFor X-Forwarded-For 请求头，可以为 null
+     * @return 客户端IP
+     */
+    public String resolve(String remoteAddr, String forwardedFor) {
+        if (forwardedFor == null || forwardedFor.isBlank() || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        String client = remoteAddr;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            client = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+}
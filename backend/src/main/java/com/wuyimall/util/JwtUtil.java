@@ -1,11 +1,15 @@
 package com.wuyimall.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
@@ -14,38 +18,103 @@ public class JwtUtil {
     private final String secret = "mall-secret-key-2025-12-06-secure-jwt-key-for-wuyi-mall-app";
     private final long expire = 1000 * 60 * 60 * 24; // 24小时
 
-    // 生成密钥
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
-    }
+    // 已验证 Token 缓存的最大条目数
+    private static final long VERIFIED_TOKEN_CACHE_SIZE = 10000;
+
+    // 角色声明名称
+    private static final String ADMIN_CLAIM = "admin";
+
+    // 密钥和解析器只构建一次，二者都是线程安全的
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+    private final JwtParser parser = Jwts.parser().verifyWith(signingKey).build();
+
+    // 已验证过签名的 Token -> 解析结果，条目在 Token 过期时自动失效
+    private final Cache<String, TokenClaims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .expireAfter(new Expiry<String, TokenClaims>() {
+                @Override
+                public long expireAfterCreate(String token, TokenClaims value, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expireAt - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String token, TokenClaims value, long currentTime, long currentDuration) {
+                    return expireAfterCreate(token, value, currentTime);
+                }
 
-    // 生成 Token
-    public String generateToken(Long userId) {
+                @Override
+                public long expireAfterRead(String token, TokenClaims value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    // 生成 Token，携带是否管理员的角色声明
+    public String generateToken(Long userId, boolean admin) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + expire);
 
         return Jwts.builder()
                 .subject(userId.toString())
+                .claim(ADMIN_CLAIM, admin)
                 .issuedAt(now)
                 .expiration(exp)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     // 从 Token 中获取 userId
     public Long getUserId(String token) {
+        return verify(token).getUserId();
+    }
+
+    // 验证 Token 并返回其中的用户ID和角色声明
+    public TokenClaims verify(String token) {
+        // 同一个 Token 在过期前只验证一次签名
+        TokenClaims cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.expireAt > System.currentTimeMillis()) {
+            return cached;
+        }
+
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Long userId = Long.parseLong(claims.getSubject());
+            // 旧版本签发的 Token 没有角色声明，此时为 null
+            Boolean admin = claims.get(ADMIN_CLAIM, Boolean.class);
 
-            return Long.parseLong(claims.getSubject());
+            if (claims.getExpiration() == null) {
+                return new TokenClaims(userId, admin, Long.MAX_VALUE);
+            }
+            TokenClaims verified = new TokenClaims(userId, admin, claims.getExpiration().getTime());
+            verifiedTokens.put(token, verified);
+            return verified;
         } catch (ExpiredJwtException e) {
             throw new RuntimeException("Token 已过期");
         } catch (JwtException e) {
             throw new RuntimeException("Token 无效");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 已验证的 Token 解析结果
+     */
+    public static class TokenClaims {
+        private final Long userId;
+        private final Boolean admin; // 是否管理员，旧 Token 没有该声明时为 null
+        private final long expireAt; // 过期时间（毫秒时间戳）
+
+        private TokenClaims(Long userId, Boolean admin, long expireAt) {
+            this.userId = userId;
+            this.admin = admin;
+            this.expireAt = expireAt;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Boolean getAdmin() {
+            return admin;
+        }
+    }
+}
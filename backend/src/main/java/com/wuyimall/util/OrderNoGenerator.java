@@ -0,0 +1,114 @@
+package com.wuyimall.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单号生成器（Snowflake 结构）
+ * 64 位整数自高到低为：41 位毫秒时间戳（相对 EPOCH）、10 位节点ID、12 位毫秒内序号，
+ * 输出为补零到 19 位的十进制字符串，因此字符串顺序与数值顺序一致，单节点内严格递增。
+ * 时间戳和序号合并保存在一个 AtomicLong 中，用 CAS 无锁更新；
+ * 同一毫秒内序号用完或系统时钟回拨时沿用上一个值加一（借用下一毫秒），但返回前会等待系统时钟追上所借的毫秒，
+ * 因此已发出的订单号不会超前于时钟，进程重启后（重启耗时远大于 1 毫秒）不会重发；
+ * 时钟回拨超过 MAX_BACKWARD_MS 时不再等待，直接抛出异常拒绝发号。
+ * 剩余风险：进程停止期间或重启后时钟被大幅回拨（如 NTP 校时）到已发出的时间段内，仍可能生成重复订单号，
+ * 此时数据库唯一键 uk_order_order_no 会拒绝插入，下单失败而不会产生重复订单
+ */
+@Component
+public class OrderNoGenerator {
+
+    // 时间戳起点：2025-01-01 00:00:00 UTC
+    public static final long EPOCH = 1735689600000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // 订单号固定长度（long 最大值为 19 位）
+    private static final int LENGTH = 19;
+
+    // 允许等待时钟追上的最大毫秒数，超过视为时钟回拨
+    private static final long MAX_BACKWARD_MS = 1000;
+
+    private final long nodeId;
+
+    // 上一次分配的 (时间戳 << SEQUENCE_BITS | 序号)
+    private final AtomicLong lastState = new AtomicLong();
+
+    /**
+     * @param nodeId 节点ID（0-1023），多实例部署时每个实例必须不同
+     */
+    @Autowired
+    public OrderNoGenerator(@Value("${wuyi.order-no.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在0到" + MAX_NODE_ID + "之间：" + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * 生成下一个订单ID
+     * @return 订单ID
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = lastState.get();
+            // 序号溢出时 last + 1 会自然进位到时间戳部分
+            next = Math.max(now, last + 1);
+        } while (!lastState.compareAndSet(last, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        awaitClock(timestamp);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * 生成下一个订单号
+     * @return 19 位数字字符串
+     */
+    public String nextOrderNo() {
+        return pad(nextId());
+    }
+
+    /**
+     * 等待系统时钟追上借用的毫秒
+     * @param timestamp 订单号中的时间戳（相对 EPOCH）
+     */
+    private static void awaitClock(long timestamp) {
+        long ahead = timestamp - (System.currentTimeMillis() - EPOCH);
+        if (ahead <= 0) {
+            return;
+        }
+        if (ahead > MAX_BACKWARD_MS) {
+            throw new IllegalStateException("系统时钟回拨 " + ahead + " 毫秒，暂停生成订单号");
+        }
+        try {
+            while (ahead > 0) {
+                Thread.sleep(ahead);
+                ahead = timestamp - (System.currentTimeMillis() - EPOCH);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待时钟时被中断", e);
+        }
+    }
+
+    private static String pad(long id) {
+        String digits = Long.toString(id);
+        if (digits.length() >= LENGTH) {
+            return digits;
+        }
+        StringBuilder sb = new StringBuilder(LENGTH);
+        for (int i = digits.length(); i < LENGTH; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+}
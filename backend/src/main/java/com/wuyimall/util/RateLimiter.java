@@ -0,0 +1,72 @@
+package com.wuyimall.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键限流（令牌桶，GCRA 实现）
+ * 每个键只保存一个“理论到达时间”，用 CAS 更新，不加锁；效果等同于容量为 burst、
+ * 每秒补充 permitsPerSecond 个令牌的令牌桶。键保存在容量有限的本地缓存中，
+ * 长时间没有请求的键（令牌桶早已补满）会被淘汰
+ */
+public class RateLimiter {
+
+    // 两次请求之间的标准间隔（纳秒）
+    private final long intervalNanos;
+
+    // 允许的突发量对应的时间（纳秒）
+    private final long burstNanos;
+
+    // 键 -> 理论到达时间（System.nanoTime 时间轴）
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param permitsPerSecond 每秒允许的请求数
+     * @param burst 允许的突发请求数（令牌桶容量）
+     * @param maxKeys 最多保存的键数量
+     */
+    public RateLimiter(double permitsPerSecond, int burst, long maxKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    /**
+     * 尝试通过一次请求
+     * @param key 限流键（如用户ID、客户端IP）
+     * @return 0 表示通过，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    /**
+     * 尝试通过一次请求
+     * @param key 限流键
+     * @param nowNanos 当前时间（System.nanoTime 时间轴）
+     * @return 0 表示通过，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(nowNanos));
+        while (true) {
+            long current = tat.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + intervalNanos;
+            long waitNanos = next - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.wuyimall.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 商品搜索分词工具
+ * 字母和数字连续成词（统一转小写）；汉字按 n-gram 切分：
+ * 建索引时同时生成单字和相邻两字，查询时连续两个及以上汉字只用两字词（相当于短语匹配），
+ * 单个汉字才用单字，这样不需要词典也能支持中文检索
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 建索引时分词
+     * @param text 文本
+     * @return 词项列表（允许重复，重复次数即词频）
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询时分词
+     * @param text 查询关键词
+     * @return 去重后的词项列表
+     */
+    public static List<String> tokenizeForQuery(String text) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(text, false)));
+    }
+
+    private static List<String> tokenize(String text, boolean forIndex) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        List<String> hanRun = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN) {
+                flushWord(word, tokens);
+                hanRun.add(new String(Character.toChars(cp)));
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushHan(hanRun, tokens, forIndex);
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else {
+                flushWord(word, tokens);
+                flushHan(hanRun, tokens, forIndex);
+            }
+        }
+        flushWord(word, tokens);
+        flushHan(hanRun, tokens, forIndex);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushHan(List<String> run, List<String> tokens, boolean forIndex) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (forIndex || run.size() == 1) {
+            tokens.addAll(run);
+        }
+        for (int i = 0; i + 1 < run.size(); i++) {
+            tokens.add(run.get(i) + run.get(i + 1));
+        }
+        run.clear();
+    }
+}
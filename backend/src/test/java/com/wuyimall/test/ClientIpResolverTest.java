@@ -0,0 +1,28 @@
+package com.wuyimall.test;
+
+import com.wuyimall.util.ClientIpResolver;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = new ClientIpResolver(List.of("127.0.0.1", "10.0.0.2"));
+
+    @Test
+    void resolve_shouldIgnoreForwardedForFromUntrustedPeer() {
+        assertEquals("203.0.113.9", resolver.resolve("203.0.113.9", "1.2.3.4"));
+    }
+
+    @Test
+    void resolve_shouldUseRightmostUntrustedHopBehindTrustedProxies() {
+        // 客户端伪造的最左边地址被忽略
+        assertEquals("198.51.100.7", resolver.resolve("127.0.0.1", "1.2.3.4, 198.51.100.7, 10.0.0.2"));
+    }
+
+    @Test
+    void resolve_shouldFallBackWhenHeaderMissingOrAllTrusted() {
+        assertEquals("127.0.0.1", resolver.resolve("127.0.0.1", null));
+        assertEquals("10.0.0.2", resolver.resolve("127.0.0.1", "10.0.0.2"));
+    }
+}
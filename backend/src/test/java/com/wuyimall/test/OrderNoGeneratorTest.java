@@ -0,0 +1,86 @@
+package com.wuyimall.test;
+
+import com.wuyimall.util.OrderNoGenerator;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNoGeneratorTest {
+
+    @Test
+    void nextOrderNo_shouldBeFixedLengthAndIncreasing() {
+        OrderNoGenerator generator = new OrderNoGenerator(1);
+
+        String previous = generator.nextOrderNo();
+        for (int i = 0; i < 100_000; i++) {
+            String current = generator.nextOrderNo();
+            assertEquals(19, current.length());
+            assertTrue(current.compareTo(previous) > 0, current + " should be after " + previous);
+            previous = current;
+        }
+    }
+
+    @Test
+    void nextId_shouldBeUniqueAcrossThreads() throws Exception {
+        OrderNoGenerator generator = new OrderNoGenerator(7);
+        int threads = 8;
+        int perThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(all.add(ids[i]), "duplicate id " + ids[i]);
+                    if (i > 0) {
+                        assertTrue(ids[i] > ids[i - 1]);
+                    }
+                }
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nextId_shouldNotRunAheadOfClock() {
+        OrderNoGenerator generator = new OrderNoGenerator(3);
+
+        // 远超每毫秒 4096 个序号，会借用后续毫秒
+        for (int i = 0; i < 50_000; i++) {
+            long timestamp = (generator.nextId() >>> 22) + OrderNoGenerator.EPOCH;
+            assertTrue(timestamp <= System.currentTimeMillis(), "id issued ahead of clock: " + timestamp);
+        }
+    }
+
+    @Test
+    void nextId_shouldEmbedNodeId() {
+        long id = new OrderNoGenerator(1023).nextId();
+
+        assertEquals(1023, (id >>> 12) & 1023);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNoGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new OrderNoGenerator(-1));
+    }
+}
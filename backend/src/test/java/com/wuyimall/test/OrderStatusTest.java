@@ -0,0 +1,36 @@
+package com.wuyimall.test;
+
+import com.wuyimall.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatusTest {
+
+    @Test
+    void canTransitTo_shouldOnlyAllowForwardTransitions() {
+        assertTrue(OrderStatus.PENDING_PAYMENT.canTransitTo(OrderStatus.PAID));
+        assertTrue(OrderStatus.PENDING_PAYMENT.canTransitTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.PAID.canTransitTo(OrderStatus.SHIPPED));
+        assertTrue(OrderStatus.SHIPPED.canTransitTo(OrderStatus.COMPLETED));
+
+        assertFalse(OrderStatus.PAID.canTransitTo(OrderStatus.PENDING_PAYMENT));
+        assertFalse(OrderStatus.PAID.canTransitTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.CANCELLED.canTransitTo(OrderStatus.PAID));
+        assertFalse(OrderStatus.PENDING_PAYMENT.canTransitTo(OrderStatus.PENDING_PAYMENT));
+    }
+
+    @Test
+    void isFinal_shouldBeTrueForCompletedAndCancelled() {
+        assertTrue(OrderStatus.COMPLETED.isFinal());
+        assertTrue(OrderStatus.CANCELLED.isFinal());
+        assertFalse(OrderStatus.PENDING_PAYMENT.isFinal());
+        assertFalse(OrderStatus.SHIPPED.isFinal());
+    }
+
+    @Test
+    void of_shouldRejectUnknownCode() {
+        assertEquals(OrderStatus.SHIPPED, OrderStatus.of(2));
+        assertThrows(RuntimeException.class, () -> OrderStatus.of(9));
+        assertThrows(RuntimeException.class, () -> OrderStatus.of(null));
+    }
+}
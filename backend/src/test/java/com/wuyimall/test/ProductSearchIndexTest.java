@@ -0,0 +1,80 @@
+package com.wuyimall.test;
+
+import com.wuyimall.entity.Product;
+import com.wuyimall.service.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1L, 1L, "华为手机", "高清拍照智能手机", 3999, 1),
+                product(2L, 1L, "手机壳", "适用于华为手机的保护壳", 29, 1),
+                product(3L, 2L, "智能台灯", "护眼 LED 台灯", 199, 1),
+                product(4L, 1L, "小米手机", "已下架商品", 1999, 0)
+        ));
+    }
+
+    @Test
+    void search_shouldRankNameMatchesFirst() {
+        ProductSearchIndex.Hits hits = index.search("华为手机", null, null, null, 0, 10);
+
+        assertEquals(2, hits.getTotal());
+        assertEquals(List.of(1L, 2L), hits.getProductIds());
+    }
+
+    @Test
+    void search_shouldSkipOffShelfProducts() {
+        ProductSearchIndex.Hits hits = index.search("小米", null, null, null, 0, 10);
+
+        assertEquals(0, hits.getTotal());
+    }
+
+    @Test
+    void search_shouldMatchLatinWordsCaseInsensitively() {
+        ProductSearchIndex.Hits hits = index.search("led", null, null, null, 0, 10);
+
+        assertEquals(List.of(3L), hits.getProductIds());
+    }
+
+    @Test
+    void search_shouldFilterByPriceAndComputeFacets() {
+        ProductSearchIndex.Hits hits = index.search("手机", null, null, new BigDecimal("100"), 0, 10);
+
+        assertEquals(List.of(2L), hits.getProductIds());
+        // 价格分面不受价格过滤影响
+        assertEquals(1, hits.getPriceFacets().get("0-50"));
+        assertEquals(1, hits.getPriceFacets().get("1000+"));
+        // 分类分面受价格过滤影响
+        assertEquals(1, hits.getCategoryFacets().get(1L));
+    }
+
+    @Test
+    void index_shouldApplyIncrementalUpdates() {
+        index.index(product(3L, 2L, "智能音箱", "蓝牙音箱", 299, 1));
+        assertEquals(0, index.search("台灯", null, null, null, 0, 10).getTotal());
+        assertEquals(List.of(3L), index.search("音箱", null, null, null, 0, 10).getProductIds());
+
+        index.remove(3L);
+        assertEquals(0, index.search("音箱", null, null, null, 0, 10).getTotal());
+    }
+
+    private Product product(Long id, Long categoryId, String name, String description, int price, int status) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategoryId(categoryId);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(BigDecimal.valueOf(price));
+        product.setStatus(status);
+        return product;
+    }
+}
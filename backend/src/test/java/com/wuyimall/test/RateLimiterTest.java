@@ -0,0 +1,56 @@
+package com.wuyimall.test;
+
+import com.wuyimall.util.RateLimiter;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_shouldAllowBurstThenReject() {
+        RateLimiter limiter = new RateLimiter(2, 3, 100);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("u:1", now));
+        }
+        long waitNanos = limiter.tryAcquire("u:1", now);
+        assertTrue(waitNanos > 0 && waitNanos <= SECOND / 2, "wait " + waitNanos);
+
+        // 其他键不受影响
+        assertEquals(0, limiter.tryAcquire("u:2", now));
+    }
+
+    @Test
+    void tryAcquire_shouldRefillOverTime() {
+        RateLimiter limiter = new RateLimiter(2, 1, 100);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("ip:127.0.0.1", now));
+        assertTrue(limiter.tryAcquire("ip:127.0.0.1", now + SECOND / 4) > 0);
+        assertEquals(0, limiter.tryAcquire("ip:127.0.0.1", now + SECOND / 2));
+    }
+
+    @Test
+    void tryAcquire_shouldNotExceedBurstAcrossThreads() throws Exception {
+        RateLimiter limiter = new RateLimiter(0.001, 50, 100);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> {
+                if (limiter.tryAcquire("u:1") == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(50, allowed.get());
+    }
+}
@@ -8,7 +8,9 @@ export default defineConfig({
     proxy: {
       '/api': {
         target: 'http://localhost:8080',
-        changeOrigin: true
+        changeOrigin: true,
+        // 添加 X-Forwarded-For，后端限流按真实客户端IP计算
+        xfwd: true
       }
     }
   }
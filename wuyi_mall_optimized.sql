@@ -82,6 +82,8 @@ CREATE TABLE `product`  (
   INDEX `idx_product_category_id`(`category_id` ASC) USING BTREE,
   INDEX `idx_product_status`(`status` ASC) USING BTREE,
   INDEX `idx_product_name`(`name` ASC) USING BTREE,
+  INDEX `idx_product_category_status_price`(`category_id` ASC, `status` ASC, `price` ASC) USING BTREE,
+  INDEX `idx_product_status_price`(`status` ASC, `price` ASC) USING BTREE,
   CONSTRAINT `fk_product_category` FOREIGN KEY (`category_id`) REFERENCES `category` (`id`) ON DELETE SET NULL
 ) ENGINE = InnoDB AUTO_INCREMENT = 17 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
 
@@ -102,6 +104,7 @@ CREATE TABLE `cart_item`  (
   `quantity` int NOT NULL,
   `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_cart_item_user_product`(`user_id` ASC, `product_id` ASC) USING BTREE,
   INDEX `idx_cart_item_user_id`(`user_id` ASC) USING BTREE,
   INDEX `idx_cart_item_product_id`(`product_id` ASC) USING BTREE,
   CONSTRAINT `fk_cart_item_product` FOREIGN KEY (`product_id`) REFERENCES `product` (`id`) ON DELETE CASCADE,
@@ -123,10 +126,11 @@ CREATE TABLE `order`  (
   `total_amount` decimal(38, 2) NOT NULL DEFAULT 0.00,
   `status` int NOT NULL DEFAULT 0,
   `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP,
+  `version` bigint NOT NULL DEFAULT 0,
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_order_order_no`(`order_no` ASC) USING BTREE,
+  UNIQUE INDEX `uk_order_order_no`(`order_no` ASC) USING BTREE,
   INDEX `idx_order_user_id`(`user_id` ASC) USING BTREE,
-  INDEX `idx_order_status`(`status` ASC) USING BTREE,
+  INDEX `idx_order_status_create_time`(`status` ASC, `create_time` ASC) USING BTREE,
   INDEX `idx_order_create_time`(`create_time` ASC) USING BTREE,
   CONSTRAINT `fk_order_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE
 ) ENGINE = InnoDB AUTO_INCREMENT = 3 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
@@ -134,8 +138,8 @@ CREATE TABLE `order`  (
 -- ----------------------------
 -- Records of `order`
 -- ----------------------------
-INSERT INTO `order` VALUES (1, '1765096360461a233316e', 12, 300.00, 1, '2025-12-07 16:32:40');
-INSERT INTO `order` VALUES (2, '176509896799249ca9606', 12, 200.00, 1, '2025-12-07 17:16:07');
+INSERT INTO `order` VALUES (1, '1765096360461a233316e', 12, 300.00, 1, '2025-12-07 16:32:40', 0);
+INSERT INTO `order` VALUES (2, '176509896799249ca9606', 12, 200.00, 1, '2025-12-07 17:16:07', 0);
 
 -- ----------------------------
 -- Table structure for order_item
@@ -164,4 +168,96 @@ INSERT INTO `order_item` VALUES (1, 1, 15, '测试商品1', 100.00, 1, CURRENT_T
 INSERT INTO `order_item` VALUES (2, 1, 16, '测试商品2', 200.00, 1, CURRENT_TIMESTAMP(6), 200.00);
 INSERT INTO `order_item` VALUES (3, 2, 15, '测试商品1', 100.00, 2, CURRENT_TIMESTAMP(6), 200.00);
 
+-- ----------------------------
+-- Table structure for order_item_seq
+-- ----------------------------
+DROP TABLE IF EXISTS `order_item_seq`;
+CREATE TABLE `order_item_seq`  (
+  `next_val` bigint NULL DEFAULT NULL
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of order_item_seq
+-- ----------------------------
+INSERT INTO `order_item_seq` VALUES (54);
+
+-- ----------------------------
+-- Table structure for sales_rollup_hourly
+-- ----------------------------
+DROP TABLE IF EXISTS `sales_rollup_hourly`;
+CREATE TABLE `sales_rollup_hourly`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `bucket_start` datetime NOT NULL,
+  `category_id` bigint NOT NULL,
+  `product_id` bigint NOT NULL,
+  `revenue` decimal(16, 2) NOT NULL,
+  `units` bigint NOT NULL,
+  `orders` bigint NOT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_sales_rollup_hourly_bucket`(`bucket_start` ASC, `category_id` ASC, `product_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for sales_rollup_daily
+-- ----------------------------
+DROP TABLE IF EXISTS `sales_rollup_daily`;
+CREATE TABLE `sales_rollup_daily`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `bucket_start` datetime NOT NULL,
+  `category_id` bigint NOT NULL,
+  `product_id` bigint NOT NULL,
+  `revenue` decimal(16, 2) NOT NULL,
+  `units` bigint NOT NULL,
+  `orders` bigint NOT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_sales_rollup_daily_bucket`(`bucket_start` ASC, `category_id` ASC, `product_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for order_event
+-- ----------------------------
+DROP TABLE IF EXISTS `order_event`;
+CREATE TABLE `order_event`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `order_id` bigint NULL DEFAULT NULL,
+  `user_id` bigint NULL DEFAULT NULL,
+  `total_amount` decimal(38, 2) NULL DEFAULT NULL,
+  `from_status` int NULL DEFAULT NULL,
+  `to_status` int NULL DEFAULT NULL,
+  `create_time` datetime(6) NULL DEFAULT NULL,
+  `attempts` int NOT NULL DEFAULT 0,
+  `failed_handlers` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
+  PRIMARY KEY (`id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for idempotency_record
+-- ----------------------------
+DROP TABLE IF EXISTS `idempotency_record`;
+CREATE TABLE `idempotency_record`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `user_id` bigint NOT NULL,
+  `endpoint` varchar(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `idem_key` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+  `request_hash` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `order_id` bigint NOT NULL,
+  `create_time` datetime(6) NOT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_idempotency_record_user_key`(`user_id` ASC, `endpoint` ASC, `idem_key` ASC) USING BTREE,
+  INDEX `idx_idempotency_record_create_time`(`create_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for inventory_journal
+-- ----------------------------
+DROP TABLE IF EXISTS `inventory_journal`;
+CREATE TABLE `inventory_journal`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `product_id` bigint NOT NULL,
+  `delta` int NOT NULL,
+  `create_time` datetime(6) NOT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_inventory_journal_product_id`(`product_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
 SET FOREIGN_KEY_CHECKS = 1;